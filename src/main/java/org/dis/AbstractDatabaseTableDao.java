@@ -2,21 +2,31 @@ package org.dis;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.dis.loader.DataSetRowCallback;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.core.simple.SimpleJdbcTemplate;
+import org.springframework.jdbc.support.DatabaseMetaDataCallback;
 import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.util.Assert;
 
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.text.MessageFormat;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
-public abstract class AbstractDatabaseTableDao implements DatabaseTableDao {
+public abstract class AbstractDatabaseTableDao implements DatabaseTableDao, InsertPlanCache.InsertPlanFactory {
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractDatabaseTableDao.class);
 
@@ -31,16 +41,45 @@ public abstract class AbstractDatabaseTableDao implements DatabaseTableDao {
     static final String DISABLE_ROW_MOVEMENT_SQL = "alter table {0} disable row movement";
     static final String FLASHBACK_TABLE_SQL = "flashback table {0} to scn {1}";
     private static final String SELECT_FROM_TABLE_SQL = "select * from {0}";
+    private static final String INSERT_SQL = "insert into {0} ({1}) values ({2})";
+    private static final String DELETE_ROW_SQL = "delete from {0} where {1}";
+    private static final String UPDATE_ROW_SQL = "update {0} set {1} where {2}";
+    private static final String CREATE_MODIFICATIONS_TABLE_SQL = "create table dis_table_modifications (table_name varchar(128) primary key, modifications numeric(19) not null)";
+    private static final String SELECT_MODIFICATIONS_SQL = "select table_name, modifications from dis_table_modifications";
+    private static final String INSERT_MODIFICATIONS_SQL = "insert into dis_table_modifications (table_name, modifications) values (?, 0)";
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_MAX_ROWS_PER_STATEMENT = 100;
+
+    // Keeps multi-row statements within the bind variable limits of the supported drivers
+    private static final int MAX_BIND_VARIABLES = 32767;
 
     private SimpleJdbcTemplate simpleJdbcTemplate;
 
     private JdbcTemplate jdbcTemplate;
 
-    // This is not thread-safe
-    private final Map<DatabaseTable, SimpleJdbcInsert> tableInsertions;
+    private InsertPlanCache insertPlanCache = InsertPlanCache.shared();
+
+    // Identifies the database in insert plan cache keys; unique to this DAO unless configured
+    private String databaseIdentity = getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(this));
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private int maxRowsPerStatement = DEFAULT_MAX_ROWS_PER_STATEMENT;
+
+    private InsertStrategy insertStrategy = InsertStrategy.BULK_LOAD;
+
+    // Qualified names of the tables whose triggers are currently disabled
+    private final Set<String> triggersDisabled;
+
+    private final Set<String> modificationsTracked = new HashSet<String>();
+
+    // Qualified names of the tables whose row movement this DAO has enabled on its data source
+    private final Set<String> rowMovementEnabled;
 
     AbstractDatabaseTableDao() {
-        tableInsertions = new HashMap<DatabaseTable, SimpleJdbcInsert>();
+        triggersDisabled = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        rowMovementEnabled = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
     }
 
     public void setSimpleJdbcTemplate(SimpleJdbcTemplate simpleJdbcTemplate) {
@@ -59,6 +98,57 @@ public abstract class AbstractDatabaseTableDao implements DatabaseTableDao {
         return jdbcTemplate;
     }
 
+    public void setBatchSize(int batchSize) {
+        Assert.isTrue(batchSize > 0, "batchSize must be greater than zero.");
+        this.batchSize = batchSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setMaxRowsPerStatement(int maxRowsPerStatement) {
+        Assert.isTrue(maxRowsPerStatement > 0, "maxRowsPerStatement must be greater than zero.");
+        this.maxRowsPerStatement = maxRowsPerStatement;
+    }
+
+    public int getMaxRowsPerStatement() {
+        return maxRowsPerStatement;
+    }
+
+    public void setInsertStrategy(InsertStrategy insertStrategy) {
+        Assert.notNull(insertStrategy, "insertStrategy cannot be null.");
+        this.insertStrategy = insertStrategy;
+    }
+
+    public InsertStrategy getInsertStrategy() {
+        return insertStrategy;
+    }
+
+    public void setInsertPlanCache(InsertPlanCache insertPlanCache) {
+        Assert.notNull(insertPlanCache, "insertPlanCache cannot be null.");
+        this.insertPlanCache = insertPlanCache;
+    }
+
+    public InsertPlanCache getInsertPlanCache() {
+        return insertPlanCache;
+    }
+
+    /**
+     * <p>
+     * Sets the identity of the database this DAO writes to, e.g. its JDBC url and user.  DAOs with the same identity
+     * share their insert plans through the {@link InsertPlanCache}.
+     * </p>
+     */
+    public void setDatabaseIdentity(String databaseIdentity) {
+        Assert.hasText(databaseIdentity, "databaseIdentity cannot be empty.");
+        this.databaseIdentity = databaseIdentity;
+    }
+
+    public String getDatabaseIdentity() {
+        return databaseIdentity;
+    }
+
     public void truncateTable(final DatabaseTable table) {
         try {
             disableConstraints(table);
@@ -68,77 +158,445 @@ public abstract class AbstractDatabaseTableDao implements DatabaseTableDao {
         }
     }
 
+    /**
+     * <p>
+     * Oracle and HSQLDB commit the current transaction before DDL.
+     * </p>
+     */
+    public boolean isDdlTransactional() {
+        return false;
+    }
+
+    public boolean isSavepointReliable() {
+        return true;
+    }
+
+    public void truncateTables(final List<DatabaseTable> orderedTables) {
+        for (final DatabaseTable table : orderedTables) {
+            truncateTable(table);
+        }
+    }
+
     public void deleteTable(final DatabaseTable table) {
         String sql = sql(DELETE_TABLE_SQL, table.qualifiedName());
         simpleJdbcTemplate.getJdbcOperations().execute(sql);
     }
 
-    public void insertRow(DataSet.DataSetRow row) {
-        final DatabaseTable table = row.getDatabaseTable();
-        SimpleJdbcInsert insert;
-        if (tableInsertions.containsKey(table)) {
-            insert = tableInsertions.get(table);
-        } else {
-            insert = createSimpleJdbcInsert(table);
-            tableInsertions.put(table, insert);
+    /**
+     * <p>
+     * Loads the columns of the table, and their JDBC types, from the database meta data.
+     * </p>
+     */
+    @SuppressWarnings("unchecked")
+    public List<DatabaseColumn> loadColumns(final DatabaseTable table) {
+        try {
+            return (List<DatabaseColumn>) JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                    new DatabaseColumnCallBack(table));
+        } catch (MetaDataAccessException e) {
+            throw new DatabaseTestException("Failed to load the columns of table [" + table.getTableName() + "]", e);
+        }
+    }
+
+    public DatabaseSchema loadDatabaseSchema(final DatabaseTable table) {
+        final DatabaseSchema schema = new DatabaseSchema();
+        schema.setDatabaseTables(loadSchemaTables(table));
+        schema.setReferentialConstraints(loadSchemaReferentialConstraints(table));
+        schema.setDatabaseTriggers(loadSchemaTriggers(table));
+        schema.setColumns(loadSchemaColumns(table));
+        logger.debug("Loaded [{}] tables and [{}] referential constraints of the schema of table [{}]",
+                new Object[]{schema.getDatabaseTables().size(), schema.getReferentialConstraints().size(),
+                        table.getTableName()});
+        return schema;
+    }
+
+    /**
+     * @return every table in the table's schema.
+     */
+    protected abstract List<DatabaseTable> loadSchemaTables(DatabaseTable table);
+
+    /**
+     * @return every referential constraint whose parent table is in the table's schema, with both the parent and
+     * the child table set.
+     */
+    protected abstract List<DatabaseReferentialConstraint> loadSchemaReferentialConstraints(DatabaseTable table);
+
+    /**
+     * @return every trigger in the table's schema, with its table set.
+     */
+    protected abstract List<DatabaseTrigger> loadSchemaTriggers(DatabaseTable table);
+
+    /**
+     * <p>
+     * Loads the columns of every table in the table's schema with a single meta data query.
+     * </p>
+     * @return the columns by table name
+     */
+    @SuppressWarnings("unchecked")
+    protected Map<String, List<DatabaseColumn>> loadSchemaColumns(final DatabaseTable table) {
+        try {
+            return (Map<String, List<DatabaseColumn>>) JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                    new SchemaColumnsCallBack(columnSchemaPattern(table)));
+        } catch (MetaDataAccessException e) {
+            throw new DatabaseTestException("Failed to load the columns of the schema of table [" + table.getTableName() + "]", e);
+        }
+    }
+
+    /**
+     * @return the schema pattern to look the table's columns up with, null to match any schema.
+     */
+    protected String columnSchemaPattern(final DatabaseTable table) {
+        return null;
+    }
+
+    /**
+     * @return the table name pattern to look the table's columns up with, in the case the database stores it in.
+     */
+    protected String columnTableNamePattern(final DatabaseTable table) {
+        return table.getTableName();
+    }
+
+    /**
+     * @param dataType  the <code>DATA_TYPE</code> of the column, see {@link java.sql.Types}
+     * @param typeName  the database specific <code>TYPE_NAME</code> of the column
+     * @return the JDBC type to coerce and bind the column's values as.
+     */
+    protected int columnType(final int dataType, final String typeName) {
+        return dataType;
+    }
+
+    public void insertRow(final DataSet.DataSetRow row) {
+        final InsertPlan plan = insertPlan(row.getDatabaseTable(), columnsOf(row));
+        jdbcTemplate.update(plan.getSql(), new PreparedStatementSetter() {
+            public void setValues(final PreparedStatement ps) throws SQLException {
+                bindRow(ps, plan, row);
+            }
+        });
+    }
+
+    /**
+     * <p>
+     * Inserts the given rows, preserving their order.  Consecutive rows that share the same table and column set
+     * are written together using the configured {@link InsertStrategy}, rather than executing one statement per row.
+     * </p>
+     * @param rows the rows to insert
+     */
+    public void insertRows(final List<DataSet.DataSetRow> rows) {
+        int start = 0;
+        while (start < rows.size()) {
+            final DataSet.DataSetRow first = rows.get(start);
+            final List<String> columns = columnsOf(first);
+            int end = start + 1;
+            while (end < rows.size() && isSameTableAndColumns(first, columns, rows.get(end))) {
+                end++;
+            }
+            if (first.hasData()) {
+                insertRows(first.getDatabaseTable(), columns, rows.subList(start, end));
+            }
+            start = end;
+        }
+    }
+
+    /**
+     * <p>
+     * Inserts rows that all belong to the same table and share the same column set, using the configured
+     * {@link InsertStrategy}.
+     * </p>
+     * @param table     the table the rows belong to
+     * @param columns   the sorted column names of every row
+     * @param rows      the rows to insert
+     */
+    protected void insertRows(final DatabaseTable table, final List<String> columns, final List<DataSet.DataSetRow> rows) {
+        switch (insertStrategy) {
+            case ROW_BY_ROW:
+                for (final DataSet.DataSetRow row : rows) {
+                    insertRow(row);
+                }
+                break;
+            case MULTI_ROW_VALUES:
+                multiRowInsert(table, columns, rows);
+                break;
+            case BULK_LOAD:
+                bulkInsert(table, columns, rows);
+                break;
+            default:
+                batchInsert(table, columns, rows);
+        }
+    }
+
+    /**
+     * <p>
+     * Inserts the rows through the dialect's native bulk load path.  Dialects without one use batched inserts.
+     * </p>
+     */
+    protected void bulkInsert(final DatabaseTable table, final List<String> columns, final List<DataSet.DataSetRow> rows) {
+        batchInsert(table, columns, rows);
+    }
+
+    protected void batchInsert(final DatabaseTable table, final List<String> columns, final List<DataSet.DataSetRow> rows) {
+        final InsertPlan plan = insertPlan(table, columns);
+        batchInsert(plan.getSql(), plan, rows, batchSize);
+    }
+
+    /**
+     * @param sql   the insert statement, which must bind the plan's columns in order
+     */
+    protected void batchInsert(final String sql, final InsertPlan plan, final List<DataSet.DataSetRow> rows,
+                               final int batchSize) {
+        logger.debug("Batch inserting [{}] rows with [{}]", rows.size(), sql);
+        jdbcTemplate.execute(sql, new PreparedStatementCallback<Object>() {
+            public Object doInPreparedStatement(final PreparedStatement ps) throws SQLException {
+                int pending = 0;
+                for (final DataSet.DataSetRow row : rows) {
+                    bindRow(ps, plan, row);
+                    ps.addBatch();
+                    if (++pending == batchSize) {
+                        ps.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    ps.executeBatch();
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * <p>
+     * Renders up to {@link #getMaxRowsPerStatement()} rows into each
+     * <code>insert into t (cols) values (...), (...), ...</code> statement.  The statement text is cached in the
+     * {@link InsertPlan} per row count, so a long run of rows only ever renders two statements: one for the full
+     * chunks and one for the remainder.
+     * </p>
+     */
+    protected void multiRowInsert(final DatabaseTable table, final List<String> columns, final List<DataSet.DataSetRow> rows) {
+        final InsertPlan plan = insertPlan(table, columns);
+        final int rowsPerStatement = Math.max(1, Math.min(maxRowsPerStatement, MAX_BIND_VARIABLES / columns.size()));
+        for (int start = 0; start < rows.size(); start += rowsPerStatement) {
+            final List<DataSet.DataSetRow> chunk = rows.subList(start, Math.min(start + rowsPerStatement, rows.size()));
+            jdbcTemplate.update(plan.getMultiRowSql(chunk.size()), new PreparedStatementSetter() {
+                public void setValues(final PreparedStatement ps) throws SQLException {
+                    int offset = 0;
+                    for (final DataSet.DataSetRow row : chunk) {
+                        bindRow(ps, offset, plan, row);
+                        offset += columns.size();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the cached plan for the table and sorted columns.
+     */
+    protected InsertPlan insertPlan(final DatabaseTable table, final List<String> columns) {
+        return insertPlanCache.get(databaseIdentity, table, columns, this);
+    }
+
+    /**
+     * <p>
+     * Creates the plan for the table and columns on an {@link InsertPlanCache} miss.
+     * </p>
+     */
+    public InsertPlan createInsertPlan(final DatabaseTable table, final List<String> columns) {
+        final int[] bindTypes = new int[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            final DatabaseColumn column = table.getColumn(columns.get(i));
+            bindTypes[i] = column == null ? SqlTypeValue.TYPE_UNKNOWN : column.getSqlType();
         }
-        Map<String, Object> values = row.getValues();
-        insert.execute(values);
+        return new InsertPlan(columns, insertSql(table, columns), bindTypes);
+    }
+
+    protected String insertSql(final DatabaseTable table, final List<String> columns) {
+        return insertSql(INSERT_SQL, table, columns);
     }
 
-    protected SimpleJdbcInsert createSimpleJdbcInsert(DatabaseTable table) {
-        return new SimpleJdbcInsert(jdbcTemplate)
-                .withSchemaName(table.getOwner())
-                .withTableName(table.getTableName());
+    /**
+     * @param messageFormat the insert statement format, taking the table name, column list and placeholders.
+     */
+    protected static String insertSql(final String messageFormat, final DatabaseTable table, final List<String> columns) {
+        final StringBuilder columnList = new StringBuilder();
+        final StringBuilder placeholders = new StringBuilder();
+        for (final String column : columns) {
+            if (columnList.length() > 0) {
+                columnList.append(", ");
+                placeholders.append(", ");
+            }
+            columnList.append(column);
+            placeholders.append('?');
+        }
+        return sql(messageFormat, table.qualifiedName(), columnList.toString(), placeholders.toString());
     }
 
+    protected void bindRow(final PreparedStatement ps, final InsertPlan plan, final DataSet.DataSetRow row)
+            throws SQLException {
+        bindRow(ps, 0, plan, row);
+    }
+
+    /**
+     * @param offset the number of parameters before the row's first one
+     */
+    protected void bindRow(final PreparedStatement ps, final int offset, final InsertPlan plan,
+                           final DataSet.DataSetRow row) throws SQLException {
+        final List<String> columns = plan.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnValues.bind(ps, offset + i + 1, plan.getBindType(i), row.getValueFor(columns.get(i)));
+        }
+    }
+
+    private static List<String> columnsOf(final DataSet.DataSetRow row) {
+        return new ArrayList<String>(new TreeSet<String>(row.getValues().keySet()));
+    }
+
+    private static boolean isSameTableAndColumns(final DataSet.DataSetRow first, final List<String> columns,
+                                                 final DataSet.DataSetRow row) {
+        return first.getDatabaseTable().getTableName().equals(row.getDatabaseTable().getTableName())
+                && columns.size() == row.getValues().size() && row.getValues().keySet().containsAll(columns);
+    }
+
+    public void trackModifications(final Collection<DatabaseTable> tables) {
+        synchronized (modificationsTracked) {
+            Map<String, Long> counts = null;
+            for (final DatabaseTable table : tables) {
+                final String tableName = table.getTableName().toUpperCase();
+                if (modificationsTracked.contains(tableName)) {
+                    continue;
+                }
+                if (counts == null) {
+                    counts = loadOrCreateModificationCounts();
+                }
+                if (!counts.containsKey(tableName)) {
+                    jdbcTemplate.update(INSERT_MODIFICATIONS_SQL, tableName);
+                }
+                for (final String sql : modificationTrackingSql(table)) {
+                    jdbcTemplate.execute(sql);
+                }
+                modificationsTracked.add(tableName);
+                logger.debug("Tracking modifications of table [{}]", tableName);
+            }
+        }
+    }
+
+    public Map<String, Long> loadModificationCounts() {
+        final Map<String, Long> counts = new HashMap<String, Long>();
+        for (final Map<String, Object> row : simpleJdbcTemplate.queryForList(SELECT_MODIFICATIONS_SQL)) {
+            counts.put(((String) row.get("table_name")).toUpperCase(), ((Number) row.get("modifications")).longValue());
+        }
+        return counts;
+    }
+
+    private Map<String, Long> loadOrCreateModificationCounts() {
+        try {
+            return loadModificationCounts();
+        } catch (BadSqlGrammarException e) {
+            logger.info("Creating table [dis_table_modifications] to track the modifications of seeded tables.");
+            jdbcTemplate.execute(CREATE_MODIFICATIONS_TABLE_SQL);
+            return new HashMap<String, Long>();
+        }
+    }
+
+    /**
+     * <p>
+     * The statements installing the triggers that increment the table's row of <code>dis_table_modifications</code>
+     * after each statement inserting, updating or deleting its rows.  They replace any triggers installed before.
+     * </p>
+     */
+    protected abstract List<String> modificationTrackingSql(DatabaseTable table);
+
     public void disableTriggers(DatabaseTable table) {
         for (DatabaseTrigger trigger : table.getDatabaseTriggers()) {
             simpleJdbcTemplate.getJdbcOperations().execute(sql(DISABLE_TRIGGER_SQL, trigger.getQualifiedName()));
         }
+        triggersDisabled.add(table.qualifiedName());
     }
 
     public void enableTriggers(DatabaseTable table) {
+        triggersDisabled.remove(table.qualifiedName());
         for (DatabaseTrigger trigger : table.getDatabaseTriggers()) {
             simpleJdbcTemplate.getJdbcOperations().execute(sql(ENABLE_TRIGGER_SQL, trigger.getQualifiedName()));
         }
     }
 
+    /**
+     * @return true when {@link #disableTriggers(DatabaseTable)} has been called for the table, and its triggers have
+     * not been enabled since.
+     */
+    protected boolean areTriggersDisabled(DatabaseTable table) {
+        return triggersDisabled.contains(table.qualifiedName());
+    }
+
     public Long getCurrentScn() {
         return simpleJdbcTemplate.queryForLong(CURRENT_SCN_SQL);
     }
 
     /**
      * <p>
-     * There are 2 types of tables that we have:
-     * <ul>
-     *  <li>IOT (Index Organized Tables) tables, and</li>
-     *  <li>Normal tables</li>
-     * </ul>
-     *
-     * For a normal table, the flashback sequence is:
+     * Flashes back all of the tables in a single statement, so that Oracle maintains the referential constraints
+     * between them and their order does not matter:
      * <code>
-     *  alter table <schema>.<table name> enable row movement;
-     *  flashback table <schema>.<table name> to scn <scn #>;
-     *  alter table <schema>.<table name> disable row movement;
-     * </code>
-     *
-     * For an IOT table, the flashback sequence is:
-     * <code>
-     *  flashback table <schema>.<table name> to scn <scn #>.;
+     *  flashback table <schema>.<table a>, <schema>.<table b> to scn <scn #>;
      * </code>
+     * A normal table must have row movement enabled to be flashed back, whereas an IOT (Index Organized Table) needs
+     * none.  Row movement is enabled the first time this DAO flashes a table back and left enabled, rather than
+     * altering the table before and after every flashback, then disabled again by {@link #destroy()}.
      * </p>
-     * @param databaseTable     The table to flashback
+     * @param databaseTables    The tables to flashback
      * @param databaseScn       The scn to flashback to
      */
-    public void flashbackTable(DatabaseTable databaseTable, Long databaseScn) {
-        if (!databaseTable.isIndexOrganized()) {
-            jdbcTemplate.execute(sql(ENABLE_ROW_MOVEMENT_SQL, databaseTable.qualifiedName()));
+    public void flashbackTables(final Collection<DatabaseTable> databaseTables, final Long databaseScn) {
+        if (databaseTables.isEmpty()) {
+            return;
         }
-        jdbcTemplate.execute(sql(FLASHBACK_TABLE_SQL, databaseTable.qualifiedName(), databaseScn.toString()));
-        if (!databaseTable.isIndexOrganized()) {
-            jdbcTemplate.execute(sql(DISABLE_ROW_MOVEMENT_SQL, databaseTable.qualifiedName()));
+        for (final DatabaseTable databaseTable : databaseTables) {
+            if (!databaseTable.isIndexOrganized()) {
+                enableRowMovement(databaseTable.qualifiedName());
+            }
         }
+        jdbcTemplate.execute(flashbackTablesSql(databaseTables, databaseScn));
+    }
+
+    private void enableRowMovement(final String tableName) {
+        if (!rowMovementEnabled.add(tableName)) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute(sql(ENABLE_ROW_MOVEMENT_SQL, tableName));
+        } catch (RuntimeException e) {
+            rowMovementEnabled.remove(tableName);
+            throw e;
+        }
+    }
+
+    /**
+     * <p>
+     * Disables the row movement enabled by {@link #flashbackTables}, while the data source is still open.
+     * </p>
+     */
+    public void destroy() {
+        for (final String tableName : rowMovementEnabled) {
+            try {
+                jdbcTemplate.execute(sql(DISABLE_ROW_MOVEMENT_SQL, tableName));
+            } catch (RuntimeException e) {
+                logger.warn("Failed to disable row movement of table [{}]: {}", tableName, e.getMessage());
+            }
+        }
+        rowMovementEnabled.clear();
+    }
+
+    public void flashbackTable(DatabaseTable databaseTable, Long databaseScn) {
+        flashbackTables(Collections.singletonList(databaseTable), databaseScn);
+    }
+
+    static String flashbackTablesSql(final Collection<DatabaseTable> databaseTables, final Long databaseScn) {
+        final StringBuilder tableNames = new StringBuilder();
+        for (final DatabaseTable databaseTable : databaseTables) {
+            if (tableNames.length() > 0) {
+                tableNames.append(", ");
+            }
+            tableNames.append(databaseTable.qualifiedName());
+        }
+        return sql(FLASHBACK_TABLE_SQL, tableNames.toString(), databaseScn.toString());
     }
 
     public Collection<DataSet.DataSetRow> loadDataRows(final DatabaseTable databaseTable) {
@@ -146,10 +604,135 @@ public abstract class AbstractDatabaseTableDao implements DatabaseTableDao {
         return simpleJdbcTemplate.query(sql, new DataSetRowMapper(databaseTable));
     }
 
+    public void processDataRows(final DatabaseTable databaseTable, final DataSetRowCallback callback) {
+        final DataSetRowMapper rowMapper = new DataSetRowMapper(databaseTable);
+        jdbcTemplate.query(sql(SELECT_FROM_TABLE_SQL, databaseTable.qualifiedName()), new RowCallbackHandler() {
+            public void processRow(final ResultSet rs) throws SQLException {
+                callback.processRow(rowMapper.mapRow(rs, rs.getRow()));
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<String> loadPrimaryKeyColumns(final DatabaseTable databaseTable) {
+        try {
+            return (List<String>) JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                    new DatabaseMetaDataCallback() {
+                        public Object processMetaData(final DatabaseMetaData dbmd) throws SQLException {
+                            final ResultSet keys = dbmd.getPrimaryKeys(null, columnSchemaPattern(databaseTable),
+                                    columnTableNamePattern(databaseTable));
+                            final SortedMap<Integer, String> keyColumns = new TreeMap<Integer, String>();
+                            try {
+                                while (keys.next()) {
+                                    keyColumns.put(keys.getInt("KEY_SEQ"), keys.getString("COLUMN_NAME").toUpperCase());
+                                }
+                            } finally {
+                                JdbcUtils.closeResultSet(keys);
+                            }
+                            return new ArrayList<String>(keyColumns.values());
+                        }
+                    });
+        } catch (MetaDataAccessException e) {
+            throw new DatabaseTestException("Failed to load the primary key of table [" + databaseTable.getTableName() + "]", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<DatabaseTable> loadParentTables(final DatabaseTable databaseTable) {
+        try {
+            return (List<DatabaseTable>) JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                    new DatabaseMetaDataCallback() {
+                        public Object processMetaData(final DatabaseMetaData dbmd) throws SQLException {
+                            final ResultSet keys = dbmd.getImportedKeys(null, columnSchemaPattern(databaseTable),
+                                    columnTableNamePattern(databaseTable));
+                            final Map<String, DatabaseTable> parentTables = new LinkedHashMap<String, DatabaseTable>();
+                            try {
+                                while (keys.next()) {
+                                    final String tableName = keys.getString("PKTABLE_NAME").toUpperCase();
+                                    if (!parentTables.containsKey(tableName)) {
+                                        parentTables.put(tableName, databaseTable.getOwner() == null
+                                                ? new DatabaseTable(tableName)
+                                                : new DatabaseTable(keys.getString("PKTABLE_SCHEM"), tableName));
+                                    }
+                                }
+                            } finally {
+                                JdbcUtils.closeResultSet(keys);
+                            }
+                            return new ArrayList<DatabaseTable>(parentTables.values());
+                        }
+                    });
+        } catch (MetaDataAccessException e) {
+            throw new DatabaseTestException("Failed to load the parent tables of table [" + databaseTable.getTableName() + "]", e);
+        }
+    }
+
+    public void deleteRows(final DatabaseTable databaseTable, final List<String> keyColumns,
+                           final List<DataSet.DataSetRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        final String sql = sql(DELETE_ROW_SQL, databaseTable.qualifiedName(), columnAssignments(keyColumns, " and "));
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                bindColumns(ps, 0, databaseTable, keyColumns, rows.get(i));
+            }
+
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    public void updateRow(final DatabaseTable databaseTable, final List<String> keyColumns,
+                          final DataSet.DataSetRow row) {
+        final List<String> columns = columnsOf(row);
+        columns.removeAll(keyColumns);
+        if (columns.isEmpty()) {
+            return;
+        }
+        final String sql = sql(UPDATE_ROW_SQL, databaseTable.qualifiedName(), columnAssignments(columns, ", "),
+                columnAssignments(keyColumns, " and "));
+        jdbcTemplate.update(sql, new PreparedStatementSetter() {
+            public void setValues(final PreparedStatement ps) throws SQLException {
+                bindColumns(ps, 0, databaseTable, columns, row);
+                bindColumns(ps, columns.size(), databaseTable, keyColumns, row);
+            }
+        });
+    }
+
+    private static String columnAssignments(final List<String> columns, final String separator) {
+        final StringBuilder assignments = new StringBuilder();
+        for (final String column : columns) {
+            if (assignments.length() > 0) {
+                assignments.append(separator);
+            }
+            assignments.append(column).append(" = ?");
+        }
+        return assignments.toString();
+    }
+
+    private static void bindColumns(final PreparedStatement ps, final int offset, final DatabaseTable table,
+                                    final List<String> columns, final DataSet.DataSetRow row) throws SQLException {
+        for (int i = 0; i < columns.size(); i++) {
+            final DatabaseColumn column = table.getColumn(columns.get(i));
+            final int sqlType = column == null ? SqlTypeValue.TYPE_UNKNOWN : column.getSqlType();
+            final Object value = row.getValueFor(columns.get(i));
+            ColumnValues.bind(ps, offset + i + 1, sqlType, column == null ? value : ColumnValues.coerce(value, sqlType));
+        }
+    }
+
+    public void disableReferentialConstraint(final DatabaseReferentialConstraint constraint) {
+        simpleJdbcTemplate.getJdbcOperations().execute(sql(DISABLE_CONSTRAINT_SQL, constraint.getQualifiedChildTableName(), constraint.getConstraintName()));
+    }
+
+    public void enableReferentialConstraint(final DatabaseReferentialConstraint constraint) {
+        simpleJdbcTemplate.getJdbcOperations().execute(sql(ENABLE_CONSTRAINT_SQL, constraint.getQualifiedChildTableName(), constraint.getConstraintName()));
+    }
+
     private void enableConstraints(DatabaseTable table) {
         for (DatabaseReferentialConstraint constraint : table.getChildConstraints()) {
             try {
-                simpleJdbcTemplate.getJdbcOperations().execute(sql(ENABLE_CONSTRAINT_SQL, constraint.getQualifiedChildTableName(), constraint.getConstraintName()));
+                enableReferentialConstraint(constraint);
             } catch (Throwable t) {
                 logger.error("Failed to enable constraint [" + constraint.getConstraintName() + "]", t);
             }
@@ -158,7 +741,7 @@ public abstract class AbstractDatabaseTableDao implements DatabaseTableDao {
 
     private void disableConstraints(DatabaseTable table) {
         for (DatabaseReferentialConstraint constraint : table.getChildConstraints()) {
-            simpleJdbcTemplate.getJdbcOperations().execute(sql(DISABLE_CONSTRAINT_SQL, constraint.getQualifiedChildTableName(), constraint.getConstraintName()));
+            disableReferentialConstraint(constraint);
         }
     }
 
@@ -166,6 +749,60 @@ public abstract class AbstractDatabaseTableDao implements DatabaseTableDao {
         return new MessageFormat(messageFormat).format(args);
     }
 
+    private final class DatabaseColumnCallBack implements DatabaseMetaDataCallback {
+
+        private final DatabaseTable table;
+
+        DatabaseColumnCallBack(final DatabaseTable table) {
+            this.table = table;
+        }
+
+        public List<DatabaseColumn> processMetaData(final DatabaseMetaData dbmd) throws SQLException {
+            final ResultSet columns = dbmd.getColumns(null, columnSchemaPattern(table), columnTableNamePattern(table), null);
+            final List<DatabaseColumn> databaseColumns = new ArrayList<DatabaseColumn>();
+            try {
+                while (columns.next()) {
+                    final String columnName = columns.getString("COLUMN_NAME");
+                    final int dataType = columns.getInt("DATA_TYPE");
+                    databaseColumns.add(new DatabaseColumn(columnName, columnType(dataType, columns.getString("TYPE_NAME"))));
+                }
+            } finally {
+                JdbcUtils.closeResultSet(columns);
+            }
+            return databaseColumns;
+        }
+    }
+
+    private final class SchemaColumnsCallBack implements DatabaseMetaDataCallback {
+
+        private final String schemaPattern;
+
+        SchemaColumnsCallBack(final String schemaPattern) {
+            this.schemaPattern = schemaPattern;
+        }
+
+        public Map<String, List<DatabaseColumn>> processMetaData(final DatabaseMetaData dbmd) throws SQLException {
+            final ResultSet columns = dbmd.getColumns(null, schemaPattern, "%", null);
+            final Map<String, List<DatabaseColumn>> columnsByTable = new HashMap<String, List<DatabaseColumn>>();
+            try {
+                while (columns.next()) {
+                    final String tableName = columns.getString("TABLE_NAME").toUpperCase();
+                    List<DatabaseColumn> tableColumns = columnsByTable.get(tableName);
+                    if (tableColumns == null) {
+                        tableColumns = new ArrayList<DatabaseColumn>();
+                        columnsByTable.put(tableName, tableColumns);
+                    }
+                    final int dataType = columns.getInt("DATA_TYPE");
+                    tableColumns.add(new DatabaseColumn(columns.getString("COLUMN_NAME"),
+                            columnType(dataType, columns.getString("TYPE_NAME"))));
+                }
+            } finally {
+                JdbcUtils.closeResultSet(columns);
+            }
+            return columnsByTable;
+        }
+    }
+
     private static class DataSetRowMapper implements RowMapper<DataSet.DataSetRow> {
 
         private final DatabaseTable databaseTable;
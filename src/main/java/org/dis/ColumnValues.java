@@ -0,0 +1,200 @@
+package org.dis;
+
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * <p>
+ * Coerces dataset values to the Java type that matches their column's JDBC type, and binds them with the matching
+ * typed setter.  Values are coerced once when a dataset is resolved against the database structure, so that binding
+ * never needs a parameter metadata lookup or a <code>setObject</code> conversion, and the server never has to convert
+ * the value implicitly.
+ * </p>
+ * <p>
+ * The coerced types are:
+ * <ul>
+ *  <li>BIGINT: {@link Long}</li>
+ *  <li>INTEGER, SMALLINT, TINYINT: {@link Integer}</li>
+ *  <li>NUMERIC, DECIMAL: {@link BigDecimal}</li>
+ *  <li>REAL: {@link Float}</li>
+ *  <li>FLOAT, DOUBLE: {@link Double}</li>
+ *  <li>CHAR, VARCHAR, LONGVARCHAR, NCHAR, NVARCHAR, LONGNVARCHAR, CLOB, NCLOB: {@link String}</li>
+ *  <li>DATE: {@link java.sql.Date}</li>
+ *  <li>TIME: {@link Time}</li>
+ *  <li>TIMESTAMP: {@link Timestamp}</li>
+ *  <li>BIT, BOOLEAN: {@link Boolean}</li>
+ * </ul>
+ * Values of any other type, and values for columns whose type is not known, are left as they are.
+ * </p>
+ */
+final class ColumnValues {
+
+    private ColumnValues() {
+    }
+
+    /**
+     * @param value     the value to coerce
+     * @param sqlType   the JDBC type of the column, see {@link Types}
+     * @return the value as the Java type for the column
+     * @throws IllegalArgumentException when the value cannot be converted
+     */
+    static Object coerce(final Object value, final int sqlType) {
+        if (value == null) {
+            return null;
+        }
+        switch (sqlType) {
+            case Types.BIGINT:
+                return value instanceof Long ? value : toNumber(value).longValue();
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                return value instanceof Integer ? value : toNumber(value).intValue();
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return toBigDecimal(value);
+            case Types.REAL:
+                return value instanceof Float ? value : toNumber(value).floatValue();
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return value instanceof Double ? value : toNumber(value).doubleValue();
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.CLOB:
+            case Types.NCLOB:
+                return value instanceof String ? value : value.toString();
+            case Types.DATE:
+                return toDate(value);
+            case Types.TIME:
+                return toTime(value);
+            case Types.TIMESTAMP:
+                return toTimestamp(value);
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return toBoolean(value);
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * <p>
+     * Binds the value with the setter for its Java type, falling back to Spring's
+     * {@link StatementCreatorUtils#setParameterValue} for any other type.
+     * </p>
+     * @param sqlType the JDBC type of the column, or {@link SqlTypeValue#TYPE_UNKNOWN}
+     */
+    static void bind(final PreparedStatement ps, final int index, final int sqlType, final Object value)
+            throws SQLException {
+        if (value == null) {
+            if (sqlType == SqlTypeValue.TYPE_UNKNOWN) {
+                StatementCreatorUtils.setParameterValue(ps, index, sqlType, null);
+            } else {
+                ps.setNull(index, sqlType);
+            }
+        } else if (value instanceof String) {
+            ps.setString(index, (String) value);
+        } else if (value instanceof Long) {
+            ps.setLong(index, (Long) value);
+        } else if (value instanceof Integer) {
+            ps.setInt(index, (Integer) value);
+        } else if (value instanceof BigDecimal) {
+            ps.setBigDecimal(index, (BigDecimal) value);
+        } else if (value instanceof Timestamp) {
+            ps.setTimestamp(index, (Timestamp) value);
+        } else if (value instanceof java.sql.Date) {
+            ps.setDate(index, (java.sql.Date) value);
+        } else if (value instanceof Time) {
+            ps.setTime(index, (Time) value);
+        } else if (value instanceof Boolean) {
+            ps.setBoolean(index, (Boolean) value);
+        } else if (value instanceof Double) {
+            ps.setDouble(index, (Double) value);
+        } else if (value instanceof Float) {
+            ps.setFloat(index, (Float) value);
+        } else {
+            StatementCreatorUtils.setParameterValue(ps, index, sqlType, value);
+        }
+    }
+
+    private static Number toNumber(final Object value) {
+        if (value instanceof Number) {
+            return (Number) value;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        return new BigDecimal(value.toString().trim());
+    }
+
+    private static BigDecimal toBigDecimal(final Object value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return BigDecimal.valueOf(((Number) value).doubleValue());
+        }
+        return new BigDecimal(toNumber(value).toString());
+    }
+
+    private static java.sql.Date toDate(final Object value) {
+        if (value instanceof java.sql.Date) {
+            return (java.sql.Date) value;
+        }
+        if (value instanceof java.util.Date) {
+            return new java.sql.Date(((java.util.Date) value).getTime());
+        }
+        final String text = value.toString().trim();
+        return text.length() > 10 ? new java.sql.Date(Timestamp.valueOf(text).getTime()) : java.sql.Date.valueOf(text);
+    }
+
+    private static Time toTime(final Object value) {
+        if (value instanceof Time) {
+            return (Time) value;
+        }
+        if (value instanceof java.util.Date) {
+            return new Time(((java.util.Date) value).getTime());
+        }
+        return Time.valueOf(value.toString().trim());
+    }
+
+    private static Timestamp toTimestamp(final Object value) {
+        if (value instanceof Timestamp) {
+            return (Timestamp) value;
+        }
+        if (value instanceof java.util.Date) {
+            return new Timestamp(((java.util.Date) value).getTime());
+        }
+        final String text = value.toString().trim();
+        return text.length() == 10 ? Timestamp.valueOf(text + " 00:00:00") : Timestamp.valueOf(text);
+    }
+
+    private static Boolean toBoolean(final Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).intValue() != 0;
+        }
+        final String text = value.toString().trim();
+        return "1".equals(text) || "true".equalsIgnoreCase(text) || "y".equalsIgnoreCase(text)
+                || "yes".equalsIgnoreCase(text);
+    }
+}
@@ -1,6 +1,7 @@
 package org.dis;
 
 import org.apache.commons.collections.map.CaseInsensitiveMap;
+import org.springframework.util.Assert;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
@@ -10,16 +11,64 @@ public class DataSet {
 
     private final MultiValueMap<String, DataSetRow> rows;
 
+    private final Set<String> resources = new LinkedHashSet<String>();
+
+    private volatile boolean frozen;
+
     public DataSet() {
         rows = new LinkedMultiValueMap<String, DataSetRow>();
     }
 
     public void addRow(final DataSetRow row) {
+        Assert.state(!frozen, "Cannot add rows to a frozen data set.");
         rows.add(row.getDatabaseTable().getTableName().toUpperCase(), row);
     }
 
+    /**
+     * <p>
+     * Makes the data set and its rows unmodifiable, so that it can be shared, e.g. through a {@link DataSetCache}.
+     * </p>
+     * @return this data set
+     */
+    public DataSet freeze() {
+        for (final List<DataSetRow> tableRows : rows.values()) {
+            for (final DataSetRow row : tableRows) {
+                row.freeze();
+            }
+        }
+        frozen = true;
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Records a classpath resource the rows were loaded from, such as an included resource.
+     */
+    public void addResource(final String resource) {
+        Assert.state(!frozen, "Cannot add resources to a frozen data set.");
+        resources.add(resource);
+    }
+
+    /**
+     * @return the classpath resources the rows were loaded from, if the loader recorded them.
+     */
+    public Set<String> getResources() {
+        return Collections.unmodifiableSet(resources);
+    }
+
+    public int size() {
+        int size = 0;
+        for (final List<DataSetRow> tableRows : rows.values()) {
+            size += tableRows.size();
+        }
+        return size;
+    }
+
     public Collection<DatabaseTable> getDatabaseTables() {
-        final Collection<DatabaseTable> tables = new HashSet<DatabaseTable>();
+        final Collection<DatabaseTable> tables = new LinkedHashSet<DatabaseTable>();
         for (final String tableName : rows.keySet()) {
             tables.add(rows.getFirst(tableName).getDatabaseTable());
         }
@@ -36,7 +85,10 @@ public class DataSet {
 
     public List<DataSetRow> getRowsFor(final DatabaseTable table) {
         List<DataSetRow> rowsFor = rows.get(table.getTableName());
-        return rowsFor == null ? new ArrayList<DataSetRow>() : rowsFor;
+        if (rowsFor == null) {
+            return new ArrayList<DataSetRow>();
+        }
+        return frozen ? Collections.unmodifiableList(rowsFor) : rowsFor;
     }
 
     public void addRows(final Collection<DataSetRow> dataSetRows) {
@@ -83,6 +135,8 @@ public class DataSet {
         /** Column name vs column value */
         private final CaseInsensitiveMap values;
 
+        private volatile boolean frozen;
+
 //        private final Map<String, Object> values;
 
         public DataSetRow() {
@@ -90,19 +144,26 @@ public class DataSet {
         }
 
         public void setDatabaseTable(DatabaseTable databaseTable) {
+            Assert.state(!frozen, "Cannot change the table of a frozen row.");
             this.databaseTable = databaseTable;
         }
 
         public void addColumnValue(String columnName, Object columnValue) {
+            Assert.state(!frozen, "Cannot add values to a frozen row.");
             values.put(columnName.toUpperCase(), columnValue);
         }
 
+        void freeze() {
+            frozen = true;
+        }
+
         public DatabaseTable getDatabaseTable() {
             return databaseTable;
         }
 
+        @SuppressWarnings("unchecked")
         public Map<String, Object> getValues() {
-            return values;
+            return frozen ? Collections.unmodifiableMap(values) : values;
         }
 
         public boolean hasData() {
@@ -0,0 +1,185 @@
+package org.dis;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * A least recently used cache of parsed, structure-resolved and frozen {@link DataSet}s, keyed by their classpath
+ * resource.  Resolved rows reference the <code>DatabaseTable</code>s of one {@link DatabaseTableService}, so each
+ * service owns its cache, and the cache goes with the service's application context.  A data set is loaded again
+ * rather than served stale when the last modified time of its resource, or of a resource it includes, has changed
+ * since it was loaded.
+ * </p>
+ * <p>
+ * The cache is bounded by the total number of rows of its data sets rather than by their number, as a few large
+ * data sets dominate its memory.  A data set with more rows than the bound is returned without being cached.  All
+ * access is thread-safe; the {@link DatabaseTestExecutionListener} uses the cache of its service, so each file is
+ * parsed and resolved once per application context.
+ * </p>
+ */
+public final class DataSetCache {
+
+    public static final long DEFAULT_MAX_ROWS = 1000000;
+
+    private final long maxRows;
+
+    private final Map<String, Entry> entries;
+
+    private long rows;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    public DataSetCache(final long maxRows) {
+        Assert.isTrue(maxRows > 0, "maxRows must be greater than zero.");
+        this.maxRows = maxRows;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    }
+
+    /**
+     * <p>
+     * Returns the cached data set for the resource, loading it through the loader on a miss.  The loader is called
+     * outside of the cache lock, so two threads missing on the same resource at once may both load it; the first one
+     * cached wins.  Loaded data sets are frozen.
+     * </p>
+     * @param resource  the classpath resource of the data set
+     * @param loader    parses and resolves the data set on a miss
+     * @return the frozen data set
+     */
+    public DataSet get(final String resource, final Loader loader) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(resource);
+        }
+        if (entry != null && entry.isCurrent()) {
+            hits.incrementAndGet();
+            return entry.dataSet;
+        }
+        misses.incrementAndGet();
+        final DataSet loaded = loader.load().freeze();
+        final int loadedRows = loaded.size();
+        if (loadedRows > maxRows) {
+            return loaded;
+        }
+        final Entry loadedEntry = new Entry(resource, loaded);
+        synchronized (entries) {
+            final Entry cached = entries.get(resource);
+            if (cached != null && cached != entry) {
+                return cached.dataSet;
+            }
+            if (cached != null) {
+                rows -= cached.dataSet.size();
+            }
+            entries.put(resource, loadedEntry);
+            rows += loadedRows;
+            evict();
+        }
+        return loaded;
+    }
+
+    private void evict() {
+        final Iterator<Entry> eldest = entries.values().iterator();
+        while (rows > maxRows && eldest.hasNext()) {
+            rows -= eldest.next().dataSet.size();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            rows = 0;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getRows() {
+        synchronized (entries) {
+            return rows;
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("DataSetCache[size=").append(size())
+                .append(", rows=").append(getRows())
+                .append(", hits=").append(getHits())
+                .append(", misses=").append(getMisses())
+                .append(", evictions=").append(getEvictions())
+                .append("]").toString();
+    }
+
+    /**
+     * @return the last modified time of the classpath resource, or 0 when it cannot be determined.
+     */
+    static long lastModified(final String resource) {
+        try {
+            return new ClassPathResource(resource).lastModified();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Loads a data set on a cache miss.
+     */
+    public interface Loader {
+        DataSet load();
+    }
+
+    /**
+     * A cached data set with the last modified times of the resources it was loaded from when it was loaded.
+     */
+    private static final class Entry {
+
+        private final DataSet dataSet;
+
+        private final Map<String, Long> lastModified = new HashMap<String, Long>();
+
+        private Entry(final String resource, final DataSet dataSet) {
+            this.dataSet = dataSet;
+            lastModified.put(resource, lastModified(resource));
+            for (final String includedResource : dataSet.getResources()) {
+                lastModified.put(includedResource, lastModified(includedResource));
+            }
+        }
+
+        private boolean isCurrent() {
+            for (final Map.Entry<String, Long> resource : lastModified.entrySet()) {
+                if (lastModified(resource.getKey()) != resource.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.dis;
+
+import org.springframework.util.Assert;
+
+/**
+ * <p>
+ * Representation of a table column, as described by the data dictionary.  It contains:
+ * <ul>
+ * <li>Column Name</li>
+ * <li>The JDBC type of the column, see {@link java.sql.Types}</li>
+ * </ul>
+ * </p>
+ */
+public class DatabaseColumn {
+
+    private String columnName;
+
+    private int sqlType;
+
+    public DatabaseColumn() {
+    }
+
+    public DatabaseColumn(final String columnName, final int sqlType) {
+        setColumnName(columnName);
+        setSqlType(sqlType);
+    }
+
+    public void setColumnName(String columnName) {
+        Assert.notNull(columnName, "columnName cannot be null.");
+        this.columnName = columnName.toUpperCase();
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public void setSqlType(int sqlType) {
+        this.sqlType = sqlType;
+    }
+
+    public int getSqlType() {
+        return sqlType;
+    }
+
+    @Override
+    public String toString() {
+        return columnName + "(" + sqlType + ")";
+    }
+}
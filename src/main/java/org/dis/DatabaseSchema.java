@@ -0,0 +1,75 @@
+package org.dis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * The unlinked structure of every table in a schema, as loaded in bulk by
+ * {@link DatabaseTableDao#loadDatabaseSchema(DatabaseTable)}.  It contains:
+ * <ul>
+ *  <li>The tables of the schema, without their constraints, triggers or columns</li>
+ *  <li>The referential constraints whose parent table is in the schema, with the parent and child tables identified
+ *  by owner and name only</li>
+ *  <li>The triggers of the schema, with their table identified by owner and name only</li>
+ *  <li>The columns of the schema's tables, by table name.</li>
+ * </ul>
+ * The {@link DatabaseTableService} links these into the complete <code>DatabaseTable</code> graph.
+ * </p>
+ */
+public class DatabaseSchema {
+
+    private List<DatabaseTable> databaseTables;
+
+    private List<DatabaseReferentialConstraint> referentialConstraints;
+
+    private List<DatabaseTrigger> databaseTriggers;
+
+    private Map<String, List<DatabaseColumn>> columns;
+
+    public DatabaseSchema() {
+        databaseTables = new ArrayList<DatabaseTable>();
+        referentialConstraints = new ArrayList<DatabaseReferentialConstraint>();
+        databaseTriggers = new ArrayList<DatabaseTrigger>();
+        columns = new HashMap<String, List<DatabaseColumn>>();
+    }
+
+    public List<DatabaseTable> getDatabaseTables() {
+        return databaseTables;
+    }
+
+    public void setDatabaseTables(List<DatabaseTable> databaseTables) {
+        this.databaseTables = databaseTables;
+    }
+
+    public List<DatabaseReferentialConstraint> getReferentialConstraints() {
+        return referentialConstraints;
+    }
+
+    public void setReferentialConstraints(List<DatabaseReferentialConstraint> referentialConstraints) {
+        this.referentialConstraints = referentialConstraints;
+    }
+
+    public List<DatabaseTrigger> getDatabaseTriggers() {
+        return databaseTriggers;
+    }
+
+    public void setDatabaseTriggers(List<DatabaseTrigger> databaseTriggers) {
+        this.databaseTriggers = databaseTriggers;
+    }
+
+    public void setColumns(Map<String, List<DatabaseColumn>> columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * @return the columns of the table, or an empty list when none were loaded for it.
+     */
+    public List<DatabaseColumn> getColumnsFor(final DatabaseTable table) {
+        final List<DatabaseColumn> tableColumns = columns.get(table.getTableName());
+        return tableColumns == null ? Collections.<DatabaseColumn>emptyList() : tableColumns;
+    }
+}
@@ -5,7 +5,11 @@ import org.apache.commons.lang.builder.ToStringStyle;
 import org.springframework.util.Assert;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * <p>
@@ -15,6 +19,7 @@ import java.util.List;
  * <li>Table Name</li>
  * <li>A list of child referential constraints (tables that have foreign keys pointing to this table)</li>
  * <li>A list of database triggers that impact this table</li>
+ * <li>The columns of the table, with their JDBC types</li>
  * <li>A list of parent referential constraints (tables that this table references via foreign keys).</li>
  * </ul>
  * </p>
@@ -27,18 +32,26 @@ public class DatabaseTable {
     private String owner;
     private boolean indexOrganized;
     private List<DatabaseTrigger> databaseTriggers;
+    private Map<String, DatabaseColumn> columns;
+    private volatile StructureResolver structureResolver;
+    private volatile boolean childConstraintsResolved = true;
+    private volatile boolean databaseTriggersResolved = true;
+    private volatile boolean parentConstraintsResolved = true;
 
     public DatabaseTable() {
         childConstraints = new ArrayList<DatabaseReferentialConstraint>();
         parentConstraints = new ArrayList<DatabaseReferentialConstraint>();
         databaseTriggers = new ArrayList<DatabaseTrigger>();
+        columns = Collections.emptyMap();
     }
 
     public DatabaseTable(final String tableName) {
+        this();
         setTableName(tableName);
     }
 
     public DatabaseTable(final String owner, final String tableName) {
+        this();
         setOwner(owner);
         setTableName(tableName);
     }
@@ -54,14 +67,23 @@ public class DatabaseTable {
 
     public void setChildConstraints(List<DatabaseReferentialConstraint> childConstraints) {
         this.childConstraints = childConstraints;
+        this.childConstraintsResolved = true;
     }
 
+    /**
+     * @return the child constraints, resolved through the {@link StructureResolver} on first use when the table was
+     * loaded lazily.
+     */
     public List<DatabaseReferentialConstraint> getChildConstraints() {
+        if (!childConstraintsResolved && structureResolver != null) {
+            structureResolver.resolveChildConstraints(this);
+        }
         return childConstraints;
     }
 
     public int getNumberOfChildConstraints() {
-        return childConstraints == null ? 0 : childConstraints.size();
+        final List<DatabaseReferentialConstraint> constraints = getChildConstraints();
+        return constraints == null ? 0 : constraints.size();
     }
 
     public void setOwner(final String owner) {
@@ -71,12 +93,77 @@ public class DatabaseTable {
 
     public void setDatabaseTriggers(List<DatabaseTrigger> databaseTriggers) {
         this.databaseTriggers = databaseTriggers;
+        this.databaseTriggersResolved = true;
     }
 
+    /**
+     * @return the triggers, resolved through the {@link StructureResolver} on first use when the table was loaded
+     * lazily.
+     */
     public List<DatabaseTrigger> getDatabaseTriggers() {
+        if (!databaseTriggersResolved && structureResolver != null) {
+            structureResolver.resolveDatabaseTriggers(this);
+        }
         return databaseTriggers;
     }
 
+    /**
+     * <p>
+     * Makes the table lazy: the parts of its structure that are not resolved yet are resolved through the resolver
+     * the first time they are used.
+     * </p>
+     */
+    void setStructureResolver(final StructureResolver structureResolver, final boolean childConstraintsResolved,
+                              final boolean databaseTriggersResolved) {
+        setStructureResolver(structureResolver, childConstraintsResolved, databaseTriggersResolved, true);
+    }
+
+    void setStructureResolver(final StructureResolver structureResolver, final boolean childConstraintsResolved,
+                              final boolean databaseTriggersResolved, final boolean parentConstraintsResolved) {
+        this.childConstraintsResolved = childConstraintsResolved;
+        this.databaseTriggersResolved = databaseTriggersResolved;
+        this.parentConstraintsResolved = parentConstraintsResolved;
+        this.structureResolver = structureResolver;
+    }
+
+    boolean isChildConstraintsResolved() {
+        return childConstraintsResolved;
+    }
+
+    boolean isDatabaseTriggersResolved() {
+        return databaseTriggersResolved;
+    }
+
+    boolean isParentConstraintsResolved() {
+        return parentConstraintsResolved;
+    }
+
+    void parentConstraintsResolved() {
+        this.parentConstraintsResolved = true;
+    }
+
+    public void setColumns(final List<DatabaseColumn> columns) {
+        final Map<String, DatabaseColumn> columnsByName = new LinkedHashMap<String, DatabaseColumn>();
+        for (final DatabaseColumn column : columns) {
+            if (!columnsByName.containsKey(column.getColumnName())) {
+                columnsByName.put(column.getColumnName(), column);
+            }
+        }
+        this.columns = Collections.unmodifiableMap(columnsByName);
+    }
+
+    public Collection<DatabaseColumn> getColumns() {
+        return columns.values();
+    }
+
+    /**
+     * @param columnName the name of the column, in any case
+     * @return the column, or null when the table has no such column or its columns have not been loaded.
+     */
+    public DatabaseColumn getColumn(final String columnName) {
+        return columns.get(columnName.toUpperCase());
+    }
+
     public String qualifiedName() {
 ///*
 //        return new StringBuilder()
@@ -106,7 +193,21 @@ public class DatabaseTable {
         parentConstraints.add(parentConstraint);
     }
 
+    /**
+     * @return the parent constraints, resolved through the {@link StructureResolver} on first use when the table was
+     * loaded lazily.
+     */
     public List<DatabaseReferentialConstraint> getParentConstraints() {
+        if (!parentConstraintsResolved && structureResolver != null) {
+            structureResolver.resolveParentConstraints(this);
+        }
+        return parentConstraints;
+    }
+
+    /**
+     * @return the parent constraints known so far, without resolving them.
+     */
+    List<DatabaseReferentialConstraint> getKnownParentConstraints() {
         return parentConstraints;
     }
 
@@ -122,4 +223,19 @@ public class DatabaseTable {
     public String toString() {
         return ToStringBuilder.reflectionToString(this, ToStringStyle.MULTI_LINE_STYLE);
     }
+
+    /**
+     * Resolves the structure of a lazily loaded table on first use.  Implementations set the resolved structure on
+     * the table through {@link DatabaseTable#setChildConstraints} and {@link DatabaseTable#setDatabaseTriggers}.
+     * Parent constraints are resolved by resolving the child constraints of each parent table, which adds them to the
+     * table through {@link DatabaseTable#addParentConstraint}.
+     */
+    public interface StructureResolver {
+
+        void resolveChildConstraints(DatabaseTable table);
+
+        void resolveDatabaseTriggers(DatabaseTable table);
+
+        void resolveParentConstraints(DatabaseTable table);
+    }
 }
@@ -1,7 +1,10 @@
 package org.dis;
 
+import org.dis.loader.DataSetRowCallback;
+
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface DatabaseTableDao {
 
@@ -9,21 +12,122 @@ public interface DatabaseTableDao {
 
     void truncateTable(DatabaseTable orderedTable);
 
+    /**
+     * <p>
+     * Truncates the tables, which must include every table referencing them.
+     * </p>
+     * @param orderedTables the tables, child before parent
+     */
+    void truncateTables(List<DatabaseTable> orderedTables);
+
     void deleteTable(DatabaseTable orderedTable);
 
     List<DatabaseTrigger> getTriggersForTable(DatabaseTable table);
 
+    List<DatabaseColumn> loadColumns(DatabaseTable table);
+
+    /**
+     * <p>
+     * Loads every table, referential constraint, trigger and column of the table's schema in a fixed number of
+     * set-based queries, rather than a handful of queries per table.
+     * </p>
+     * @param table a table in the schema to load, its owner or the default schema identifies the schema
+     */
+    DatabaseSchema loadDatabaseSchema(DatabaseTable table);
+
+    /**
+     * @return a value that changes whenever the structure of the default schema changes.
+     */
+    String getSchemaFingerprint();
+
+    void disableReferentialConstraint(DatabaseReferentialConstraint constraint);
+
+    void enableReferentialConstraint(DatabaseReferentialConstraint constraint);
+
+    /**
+     * @return true when DDL, such as disabling a trigger or a constraint, runs within the current transaction rather
+     * than committing it.
+     */
+    boolean isDdlTransactional();
+
+    /**
+     * @return true when rolling back to a savepoint restores exactly the rows as they were when it was set.
+     */
+    boolean isSavepointReliable();
+
+    /**
+     * <p>
+     * Installs statement level triggers that count the statements modifying each of the tables in the
+     * <code>dis_table_modifications</code> table, creating it when it does not exist yet.  Tables that are already
+     * tracked are skipped.  The triggers are DDL, so on some databases this commits.
+     * </p>
+     */
+    void trackModifications(Collection<DatabaseTable> tables);
+
+    /**
+     * @return the number of modifying statements counted for each tracked table, by upper case table name.
+     */
+    Map<String, Long> loadModificationCounts();
+
     void disableTriggers(DatabaseTable table);
 
     void enableTriggers(DatabaseTable table);
 
     void insertRow(DataSet.DataSetRow row);
 
+    void insertRows(List<DataSet.DataSetRow> rows);
+
     Long getCurrentScn();
 
     void flashbackTable(DatabaseTable databaseTable, Long databaseScn);
 
+    /**
+     * <p>
+     * Flashes back the tables together, in a single statement.
+     * </p>
+     */
+    void flashbackTables(Collection<DatabaseTable> databaseTables, Long databaseScn);
+
+    /**
+     * <p>
+     * Undoes the changes to the database's tables made for the DAO's own use, such as enabling row movement for
+     * flashbacks.  Called before the data source is closed.
+     * </p>
+     */
+    void destroy();
+
     DatabaseTable loadDatabaseTable(DatabaseTable table);
 
     Collection<DataSet.DataSetRow> loadDataRows(DatabaseTable databaseTable);
+
+    /**
+     * <p>
+     * Hands each row of the table to the callback as it is read, rather than loading every row first.
+     * </p>
+     */
+    void processDataRows(DatabaseTable databaseTable, DataSetRowCallback callback);
+
+    /**
+     * @return the upper case names of the table's primary key columns in key order, empty when it has none.
+     */
+    List<String> loadPrimaryKeyColumns(DatabaseTable databaseTable);
+
+    /**
+     * @return the tables referenced by the foreign keys of the table, identified by owner and name only.
+     */
+    List<DatabaseTable> loadParentTables(DatabaseTable databaseTable);
+
+    /**
+     * <p>
+     * Deletes the rows of the table with the primary keys of the given rows, in a single batch.
+     * </p>
+     */
+    void deleteRows(DatabaseTable databaseTable, List<String> keyColumns, List<DataSet.DataSetRow> rows);
+
+    /**
+     * <p>
+     * Sets every other column of the row, for the table row with the row's primary key.
+     * </p>
+     */
+    void updateRow(DatabaseTable databaseTable, List<String> keyColumns, DataSet.DataSetRow row);
 }
@@ -1,6 +1,7 @@
 package org.dis;
 
 import java.util.Collection;
+import java.util.Iterator;
 
 public interface DatabaseTableService {
 
@@ -12,6 +13,14 @@ public interface DatabaseTableService {
 
     DatabaseTable loadDatabaseTableStructure(DatabaseTable databaseTable);
 
+    /**
+     * <p>
+     * Gives every row of the dataset its table's complete structure, and coerces its values once to the Java types
+     * of their columns.
+     * </p>
+     */
+    DataSet resolveDataSet(DataSet dataSet);
+
     Long getDatabaseScn();
 
     void flashbackTables(Collection<DatabaseTable> databaseTables, Long databaseScn);
@@ -22,9 +31,69 @@ public interface DatabaseTableService {
 
     void insertDataSet(DataSet dataSet);
 
+    /**
+     * <p>
+     * Inserts rows as they arrive, e.g. from a {@link org.dis.loader.StreamingXMLDataSetLoader}, without holding the
+     * whole dataset in memory.  Each row is resolved as by {@link #resolveDataSet(DataSet)} and buffered with the
+     * other rows of its table.  Whenever a table has <code>batchSize</code> rows buffered, every buffered row is
+     * inserted, table by table, parent before child.  A row must therefore arrive after the rows it references.
+     * The rows are closed once inserted or on failure when they are {@link java.io.Closeable}, such as those of a
+     * {@link org.dis.loader.DataSetRowIterator}.
+     * </p>
+     * @param rows      the rows to insert
+     * @param batchSize the number of rows of a table to buffer before inserting
+     * @return the number of rows inserted
+     */
+    long insertDataSet(Iterator<DataSet.DataSetRow> rows, int batchSize);
+
+    /**
+     * <p>
+     * Deletes the tables of the dataset, disables their triggers, inserts the dataset and re-enables the triggers.
+     * Tables that are not connected through foreign keys are seeded concurrently, each group within its own
+     * {@link SeedingSession}.
+     * </p>
+     */
+    void seedDataSet(DataSet dataSet);
+
+    /**
+     * @param commitInterval the number of inserted rows after which to commit, zero for a single transaction.
+     * @see #seedDataSet(DataSet)
+     */
+    void seedDataSet(DataSet dataSet, int commitInterval);
+
+    /**
+     * @param commitInterval the number of inserted rows after which to commit, zero for a single transaction.
+     * @param resetStrategy  how the tables are emptied before the dataset is inserted.
+     * @see #seedDataSet(DataSet)
+     */
+    void seedDataSet(DataSet dataSet, int commitInterval, ResetStrategy resetStrategy);
+
+    /**
+     * <p>
+     * Pins one connection to the current thread until the session is closed.  Every statement issued by this service
+     * on the current thread, including {@link #seedDataSet}, uses that connection.
+     * </p>
+     * @param commitInterval the number of inserted rows after which to commit, zero for a single transaction.
+     */
+    SeedingSession openSeedingSession(int commitInterval);
+
+    /**
+     * <p>
+     * Begins a transaction on the current thread that seeding participates in and that is rolled back, rather than
+     * committed, when the test completes.  While it is active, seeding refuses to issue DDL that would commit it on
+     * this database, such as disabling triggers on Oracle.
+     * </p>
+     */
+    TestTransaction beginTestTransaction();
+
     void disableTriggers(Collection<DatabaseTable> databaseTables);
 
     void enableTriggers(Collection<DatabaseTable> databaseTables);
 
     DataSet loadDataSetFromTables(Collection<DatabaseTable> databaseTables);
+
+    /**
+     * @return the cache of datasets resolved by this service, which is discarded with it.
+     */
+    DataSetCache getDataSetCache();
 }
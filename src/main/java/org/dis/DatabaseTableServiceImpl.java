@@ -3,8 +3,15 @@ package org.dis;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.util.Assert;
 
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.dis.AbstractDatabaseTableDao.sql;
 import static org.springframework.util.StringUtils.hasText;
@@ -16,17 +23,153 @@ public class DatabaseTableServiceImpl implements DatabaseTableService {
 
     private DatabaseTableDao databaseTableDao;
 
-    // this is not thread-safe
-    private final Map<String, DatabaseTable> cache;
+    private DataSource dataSource;
+
+    private SchemaMetadataCache schemaMetadataCache;
+
+    private SeedingScheduler seedingScheduler;
+
+    private boolean bulkIntrospection;
+
+    private boolean lazyIntrospection;
+
+    private boolean dirtyTableTracking;
+
+    // What each tracked table was last seeded with, by upper case table name
+    private final ConcurrentMap<String, SeededTable> seededTables;
+
+    // Primary key columns by upper case table name, for delta seeding
+    private final ConcurrentMap<String, List<String>> primaryKeyColumns;
+
+    private final DatabaseTable.StructureResolver structureResolver;
+
+    private final DataSetCache dataSetCache;
+
+    private File schemaCacheFile;
+
+    // The fingerprint of the schema when the schema cache file was read, null until then
+    private volatile String schemaFingerprint;
+
+    // Delete plans by the qualified names of the tables they empty
+    private final ConcurrentMap<Set<String>, List<DatabaseTable>> deletePlans;
+
+    // The index of every table ordered so far, rebuilt when tables outside it are ordered
+    private volatile SchemaGraphIndex schemaGraphIndex;
+
+    private final Object schemaGraphIndexLock = new Object();
 
     public DatabaseTableServiceImpl() {
-        cache = new HashMap<String, DatabaseTable>();
+        deletePlans = new ConcurrentHashMap<Set<String>, List<DatabaseTable>>();
+        seededTables = new ConcurrentHashMap<String, SeededTable>();
+        primaryKeyColumns = new ConcurrentHashMap<String, List<String>>();
+        seedingScheduler = new SeedingScheduler(Runtime.getRuntime().availableProcessors());
+        structureResolver = new LazyStructureResolver();
+        setSchemaMetadataCache(new SchemaMetadataCache());
+        dataSetCache = new DataSetCache(DataSetCache.DEFAULT_MAX_ROWS);
+        schemaGraphIndex = SchemaGraphIndex.build(Collections.<DatabaseTable>emptyList());
+    }
+
+    /**
+     * <p>
+     * Detaches from the schema metadata cache, shuts down the seeding workers and releases what the DAO holds on the
+     * database, see {@link DatabaseTableDao#destroy()}.
+     * </p>
+     */
+    public void destroy() {
+        schemaMetadataCache.detach(structureResolver);
+        seedingScheduler.shutdown();
+        databaseTableDao.destroy();
+    }
+
+    public DataSetCache getDataSetCache() {
+        return dataSetCache;
     }
 
     public void setDatabaseTableDao(DatabaseTableDao databaseTableDao) {
         this.databaseTableDao = databaseTableDao;
     }
 
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * @param seedingThreads the maximum number of independent table components seeded concurrently.
+     */
+    public void setSeedingThreads(int seedingThreads) {
+        final SeedingScheduler replaced = this.seedingScheduler;
+        this.seedingScheduler = new SeedingScheduler(seedingThreads);
+        replaced.shutdown();
+    }
+
+    /**
+     * <p>
+     * Lazily loaded tables in the cache resolve their structure through this service until it is destroyed, and
+     * through another service using the same cache after that.
+     * </p>
+     * @param schemaMetadataCache the cache of loaded table structures, shared by every service for the same schema
+     */
+    public void setSchemaMetadataCache(SchemaMetadataCache schemaMetadataCache) {
+        if (this.schemaMetadataCache != null) {
+            this.schemaMetadataCache.detach(structureResolver);
+        }
+        schemaMetadataCache.attach(structureResolver);
+        this.schemaMetadataCache = schemaMetadataCache;
+    }
+
+    /**
+     * <p>
+     * Persists loaded table structures to the given file, and preloads them from it on the first lookup when the
+     * schema's fingerprint still matches the one the file was written for.  This saves a new JVM from introspecting a
+     * schema that has not changed.
+     * </p>
+     * @param schemaCacheFile the file to persist table structures to, null to disable persistence
+     */
+    public void setSchemaCacheFile(File schemaCacheFile) {
+        this.schemaCacheFile = schemaCacheFile;
+    }
+
+    /**
+     * <p>
+     * With bulk introspection, the first table looked up in a schema loads the structure of every table in that
+     * schema through {@link DatabaseTableDao#loadDatabaseSchema(DatabaseTable)}, in a fixed number of queries, rather
+     * than walking the foreign keys with several queries per table.  This is much faster for large, highly connected
+     * schemas, but loads tables a dataset may never use.
+     * </p>
+     */
+    public void setBulkIntrospection(boolean bulkIntrospection) {
+        this.bulkIntrospection = bulkIntrospection;
+    }
+
+    /**
+     * <p>
+     * With lazy introspection, looking up a table only loads the table and its columns.  Its child constraints and
+     * triggers are resolved through the {@link DatabaseTableDao} the first time
+     * {@link DatabaseTable#getChildConstraints()} or {@link DatabaseTable#getDatabaseTriggers()} is called, and are
+     * memoized on the cached table, so introspection scales with the tables a test touches rather than with the size
+     * of the schema.  Its parent constraints are likewise resolved the first time
+     * {@link DatabaseTable#getParentConstraints()} is called.  Ignored when bulk introspection is enabled.
+     * </p>
+     */
+    public void setLazyIntrospection(boolean lazyIntrospection) {
+        this.lazyIntrospection = lazyIntrospection;
+    }
+
+    /**
+     * <p>
+     * With dirty table tracking, {@link #seedDataSet} installs triggers counting the modifications of every table it
+     * empties, see {@link DatabaseTableDao#trackModifications(java.util.Collection)}.  A table is only emptied and
+     * seeded again when it was modified since it was last seeded, or was last seeded with other rows, together with
+     * the tables referencing it.  Rows are compared by identity, as the datasets of
+     * {@link DatabaseTestExecutionListener} are shared through the {@link DataSetCache}.  This saves resetting the
+     * tables of read-only tests, but a modification the triggers cannot see, such as an Oracle
+     * <code>truncate</code>, leaves a table dirty until it is next seeded with other rows.
+     * </p>
+     */
+    public void setDirtyTableTracking(boolean dirtyTableTracking) {
+        this.dirtyTableTracking = dirtyTableTracking;
+    }
+
     /**
      * <p>
      * Loads the database structure including child foreign key reference tables
@@ -41,90 +184,239 @@ public class DatabaseTableServiceImpl implements DatabaseTableService {
     }
 
     public DatabaseTable loadDatabaseTableStructure(final DatabaseTable databaseTable) {
-        final String tableName = databaseTable.getTableName();
-        DatabaseTable result;
-        if (cache.containsKey(tableName)) {
-            result = cache.get(tableName);
-        } else {
-            result = loadCompleteDatabaseTableStructure(databaseTable);
-            cache.put(tableName, result);
+        readSchemaCacheFile();
+        final boolean[] loaded = new boolean[1];
+        final DatabaseTable result = schemaMetadataCache.get(databaseTable.getTableName(), new SchemaMetadataCache.Loader() {
+            public DatabaseTable load() {
+                loaded[0] = true;
+                if (bulkIntrospection) {
+                    return loadSchemaStructure(databaseTable);
+                }
+                return lazyIntrospection
+                        ? loadLazyDatabaseTableStructure(databaseTable) : loadCompleteDatabaseTableStructure(databaseTable);
+            }
+        });
+        if (loaded[0]) {
+            writeSchemaCacheFile();
         }
         return result;
     }
 
-    public void truncateDatabaseTable(final DatabaseTable table) {
-        for (DatabaseReferentialConstraint childConstraint : table.getChildConstraints()) {
-            truncateDatabaseTable(childConstraint.getChildTable());
+    private void writeSchemaCacheFile() {
+        if (schemaCacheFile != null && !schemaMetadataCache.isLoading()) {
+            SchemaMetadataFile.write(schemaCacheFile, schemaFingerprint, schemaMetadataCache.getTables());
         }
-        databaseTableDao.truncateTable(table);
     }
 
-    public void deleteDatabaseTable(DatabaseTable table) {
-        for (DatabaseReferentialConstraint childConstraint : table.getChildConstraints()) {
-            deleteDatabaseTable(childConstraint.getChildTable());
+    private void readSchemaCacheFile() {
+        if (schemaCacheFile != null && schemaFingerprint == null) {
+            synchronized (this) {
+                if (schemaFingerprint == null) {
+                    final String fingerprint = String.valueOf(databaseTableDao.getSchemaFingerprint());
+                    final List<DatabaseTable> tables = SchemaMetadataFile.read(schemaCacheFile, fingerprint);
+                    if (tables != null) {
+                        for (final DatabaseTable table : tables) {
+                            if (!table.isChildConstraintsResolved() || !table.isDatabaseTriggersResolved()
+                                    || lazyIntrospection) {
+                                // the parents of a cached table are only known once they have been resolved
+                                table.setStructureResolver(schemaMetadataCache.getStructureResolver(),
+                                        table.isChildConstraintsResolved(),
+                                        table.isDatabaseTriggersResolved(), !lazyIntrospection);
+                            }
+                        }
+                        schemaMetadataCache.preload(tables);
+                        logger.info("Loaded the structure of [{}] tables from schema cache file [{}]",
+                                tables.size(), schemaCacheFile);
+                    }
+                    schemaFingerprint = fingerprint;
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Loads the schema of the given table in bulk, links its tables, referential constraints, triggers and columns
+     * into <code>DatabaseTable</code> graphs in memory, and registers every table of the schema with the cache.
+     * Tables that are already cached are kept, and child tables outside of the schema are loaded on their own.
+     * </p>
+     * @param databaseTable the table to load
+     * @return the given table with a complete structure
+     */
+    private DatabaseTable loadSchemaStructure(final DatabaseTable databaseTable) {
+        final DatabaseSchema schema = databaseTableDao.loadDatabaseSchema(databaseTable);
+        final Map<String, DatabaseTable> schemaTables = new HashMap<String, DatabaseTable>();
+        for (final DatabaseTable table : schema.getDatabaseTables()) {
+            if (schemaMetadataCache.lookup(table.getTableName()) == null) {
+                table.setColumns(schema.getColumnsFor(table));
+                schemaTables.put(table.getTableName(), table);
+                schemaMetadataCache.loading(table);
+            }
+        }
+
+        for (final DatabaseTrigger trigger : schema.getDatabaseTriggers()) {
+            final DatabaseTable table = schemaTables.get(trigger.getDatabaseTable().getTableName());
+            if (table != null) {
+                trigger.setDatabaseTable(table);
+                table.getDatabaseTriggers().add(trigger);
+            }
+        }
+        for (final DatabaseReferentialConstraint constraint : schema.getReferentialConstraints()) {
+            final DatabaseTable parentTable = schemaTables.get(constraint.getParentTable().getTableName());
+            if (parentTable != null) {
+                final DatabaseTable childTable = loadDatabaseTableStructure(constraint.getChildTable());
+                constraint.setParentTable(parentTable);
+                constraint.setChildTable(childTable);
+                parentTable.getChildConstraints().add(constraint);
+                childTable.addParentConstraint(constraint);
+            }
+        }
+        logger.info("Loaded the structure of [{}] tables in bulk.", schemaTables.size());
+
+        final DatabaseTable result = schemaMetadataCache.lookup(databaseTable.getTableName());
+        if (result == null) {
+            throw new DatabaseTestException(tableNotFoundMessage(databaseTable));
+        }
+        return result;
+    }
+
+    /**
+     * <p>
+     * Resolves every row of the dataset against the database: each row is given its table's complete structure, and
+     * its values are coerced to the Java types of their columns, so they can be bound with typed setters.  Values for
+     * columns the database does not report are left as they are.
+     * </p>
+     * @param dataSet the dataset to resolve
+     * @return the resolved dataset
+     */
+    public DataSet resolveDataSet(final DataSet dataSet) {
+        for (final DataSet.DataSetRow row : dataSet.getRows()) {
+            resolveRow(row);
+        }
+        return dataSet;
+    }
+
+    private void resolveRow(final DataSet.DataSetRow row) {
+        final DatabaseTable databaseTable = loadDatabaseTableStructure(row.getDatabaseTable());
+        row.setDatabaseTable(databaseTable);
+        coerceValues(databaseTable, row);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void coerceValues(final DatabaseTable databaseTable, final DataSet.DataSetRow row) {
+        for (final Map.Entry<String, Object> value : row.getValues().entrySet()) {
+            final DatabaseColumn column = databaseTable.getColumn(value.getKey());
+            if (column != null) {
+                try {
+                    value.setValue(ColumnValues.coerce(value.getValue(), column.getSqlType()));
+                } catch (IllegalArgumentException e) {
+                    throw new DatabaseTestException("Cannot convert value [" + value.getValue() + "] for column ["
+                            + databaseTable.getTableName() + "." + column.getColumnName() + "] to JDBC type ["
+                            + column.getSqlType() + "]", e);
+                }
+            }
         }
+    }
 
-        databaseTableDao.deleteTable(table);
+    public void truncateDatabaseTable(final DatabaseTable table) {
+        databaseTableDao.truncateTables(deletePlan(Collections.singleton(table)));
+    }
+
+    public void deleteDatabaseTable(DatabaseTable table) {
+        deleteTables(Collections.singleton(table));
     }
 
     public Long getDatabaseScn() {
         return databaseTableDao.getCurrentScn();
     }
 
+    /**
+     * <p>
+     * Flashes back the given tables and every table connected to them through referential constraints, all in a
+     * single statement.
+     * </p>
+     */
     public void flashbackTables(Collection<DatabaseTable> databaseTables, Long databaseScn) {
-        final Set<DatabaseTable> flashbackedTables = new HashSet<DatabaseTable>();
-        for (DatabaseTable databaseTable : databaseTables) {
-            flashbackTable(databaseTable, databaseScn, flashbackedTables, new FlashbackTableCallback() {
-                public void flashbackTable(DatabaseTable databaseTable, Long databaseScn) {
-                    databaseTableDao.flashbackTable(databaseTable, databaseScn);
-                }
-            });
-        }
+        databaseTableDao.flashbackTables(connectedTables(databaseTables), databaseScn);
     }
 
     public void logFlashbackTables(Collection<DatabaseTable> databaseTables, Long databaseScn, final StringBuilder builder) {
-        final Set<DatabaseTable> flashbackedTables = new HashSet<DatabaseTable>();
-        for (DatabaseTable databaseTable : databaseTables) {
-            flashbackTable(databaseTable, databaseScn, flashbackedTables, new FlashbackTableCallback() {
-                public void flashbackTable(DatabaseTable databaseTable, Long databaseScn) {
-                    if (!databaseTable.isIndexOrganized()) {
-                        builder.append(sql(AbstractDatabaseTableDao.ENABLE_ROW_MOVEMENT_SQL, databaseTable.qualifiedName())).append(";\n");
-                    }
-                    builder.append(sql(AbstractDatabaseTableDao.FLASHBACK_TABLE_SQL, databaseTable.qualifiedName(), databaseScn.toString())).append(";\n");
-                    if (!databaseTable.isIndexOrganized()) {
-                        builder.append(sql(AbstractDatabaseTableDao.DISABLE_ROW_MOVEMENT_SQL, databaseTable.qualifiedName())).append(";\n");
-                    }
-                    builder.append("\n");
-                }
-            });
+        final List<DatabaseTable> connectedTables = connectedTables(databaseTables);
+        for (DatabaseTable databaseTable : connectedTables) {
+            if (!databaseTable.isIndexOrganized()) {
+                builder.append(sql(AbstractDatabaseTableDao.ENABLE_ROW_MOVEMENT_SQL, databaseTable.qualifiedName())).append(";\n");
+            }
+        }
+        builder.append(AbstractDatabaseTableDao.flashbackTablesSql(connectedTables, databaseScn)).append(";\n");
+        for (DatabaseTable databaseTable : connectedTables) {
+            if (!databaseTable.isIndexOrganized()) {
+                builder.append(sql(AbstractDatabaseTableDao.DISABLE_ROW_MOVEMENT_SQL, databaseTable.qualifiedName())).append(";\n");
+            }
         }
     }
 
-    private void flashbackTable(DatabaseTable databaseTable, Long databaseScn, final Set<DatabaseTable> flashbackedTables, final FlashbackTableCallback callback) {
-        for (DatabaseReferentialConstraint parentConstraint : databaseTable.getParentConstraints()) {
-            final DatabaseTable parentTable = parentConstraint.getParentTable();
-            if (!flashbackedTables.contains(parentTable)) {
-                flashbackTable(parentTable, databaseScn, flashbackedTables, callback);
+    /**
+     * <p>
+     * Walks the child and parent referential constraints of the tables, resolving those of lazily loaded tables, so
+     * that the index covers every table connected to them.
+     * </p>
+     * @return the given tables and every table connected to them, ordered parent before child.
+     */
+    List<DatabaseTable> connectedTables(final Collection<DatabaseTable> databaseTables) {
+        final Map<String, DatabaseTable> connected = new LinkedHashMap<String, DatabaseTable>();
+        final LinkedList<DatabaseTable> pending = new LinkedList<DatabaseTable>();
+        for (final DatabaseTable databaseTable : databaseTables) {
+            if (connected.put(databaseTable.qualifiedName(), databaseTable) == null) {
+                pending.add(databaseTable);
             }
         }
-
-        if (!flashbackedTables.contains(databaseTable)) {
-            // due to the nature in which we're traversing parents and children, it is plausible that a table may
-            // be flashed back via a parent, then child relationship before reaching here on its original pass.
-            callback.flashbackTable(databaseTable, databaseScn);
-            flashbackedTables.add(databaseTable);
+        while (!pending.isEmpty()) {
+            final DatabaseTable databaseTable = pending.removeFirst();
+            for (final DatabaseReferentialConstraint constraint : databaseTable.getChildConstraints()) {
+                if (!connected.containsKey(constraint.getChildTable().qualifiedName())) {
+                    connected.put(constraint.getChildTable().qualifiedName(), constraint.getChildTable());
+                    pending.add(constraint.getChildTable());
+                }
+            }
+            for (final DatabaseReferentialConstraint constraint : databaseTable.getParentConstraints()) {
+                if (!connected.containsKey(constraint.getParentTable().qualifiedName())) {
+                    connected.put(constraint.getParentTable().qualifiedName(), constraint.getParentTable());
+                    pending.add(constraint.getParentTable());
+                }
+            }
         }
+        return schemaGraphIndex(connected.values()).connectedTables(databaseTables);
+    }
 
-        for (DatabaseReferentialConstraint childConstraint : databaseTable.getChildConstraints()) {
-            final DatabaseTable childTable = childConstraint.getChildTable();
-            if (!flashbackedTables.contains(childTable)) {
-                flashbackTable(childTable, databaseScn, flashbackedTables, callback);
+    /**
+     * <p>
+     * Returns an index covering the given tables, reusing the current index when it already does.  Otherwise a new
+     * index is built over the tables of the current index and the given tables, and replaces it.
+     * </p>
+     */
+    SchemaGraphIndex schemaGraphIndex(final Collection<DatabaseTable> databaseTables) {
+        SchemaGraphIndex index = schemaGraphIndex;
+        if (!index.containsAll(databaseTables)) {
+            synchronized (schemaGraphIndexLock) {
+                index = schemaGraphIndex;
+                if (!index.containsAll(databaseTables)) {
+                    // the given tables first, so they replace any reloaded table of the same name
+                    final Set<DatabaseTable> tables = new LinkedHashSet<DatabaseTable>(databaseTables);
+                    tables.addAll(index.getTables());
+                    index = SchemaGraphIndex.build(tables);
+                    schemaGraphIndex = index;
+                    logger.debug("Indexed the graph of [{}] tables.", index.size());
+                }
             }
         }
+        return index;
     }
 
     public void disableTriggers(Collection<DatabaseTable> databaseTables) {
         for (DatabaseTable table : databaseTables) {
+            if (!table.getDatabaseTriggers().isEmpty()) {
+                checkDdlAllowed("disable the triggers of table [" + table.getTableName() + "]");
+            }
             databaseTableDao.disableTriggers(table);
         }
     }
@@ -136,19 +428,419 @@ public class DatabaseTableServiceImpl implements DatabaseTableService {
     }
 
     public void insertDataSet(DataSet dataSet) {
-        for (DataSet.DataSetRow row : dataSet.getRows()) {
-            if (row.hasData()) {
-                databaseTableDao.insertRow(row);
+        databaseTableDao.insertRows(dataSet.getRows());
+    }
+
+    public long insertDataSet(final Iterator<DataSet.DataSetRow> rows, final int batchSize) {
+        Assert.isTrue(batchSize > 0, "batchSize must be greater than zero.");
+        final Map<DatabaseTable, List<DataSet.DataSetRow>> batches =
+                new LinkedHashMap<DatabaseTable, List<DataSet.DataSetRow>>();
+        long inserted = 0;
+        try {
+            while (rows.hasNext()) {
+                final DataSet.DataSetRow row = rows.next();
+                resolveRow(row);
+                List<DataSet.DataSetRow> batch = batches.get(row.getDatabaseTable());
+                if (batch == null) {
+                    batch = new ArrayList<DataSet.DataSetRow>(batchSize);
+                    batches.put(row.getDatabaseTable(), batch);
+                }
+                batch.add(row);
+                if (batch.size() >= batchSize) {
+                    inserted += insertBatches(batches);
+                }
             }
+            inserted += insertBatches(batches);
+        } finally {
+            // stops the parser of a streamed dataset when a row fails to insert
+            if (rows instanceof Closeable) {
+                try {
+                    ((Closeable) rows).close();
+                } catch (IOException e) {
+                    logger.debug("Failed to close the rows of a streamed dataset.", e);
+                }
+            }
+        }
+        logger.info("Streamed [{}] rows into the database.", inserted);
+        return inserted;
+    }
+
+    /**
+     * Inserts the buffered rows of every table, parent before child, and empties the buffers.
+     */
+    private int insertBatches(final Map<DatabaseTable, List<DataSet.DataSetRow>> batches) {
+        int inserted = 0;
+        for (final DatabaseTable databaseTable : schemaGraphIndex(batches.keySet()).parentsFirst(batches.keySet())) {
+            final List<DataSet.DataSetRow> batch = batches.get(databaseTable);
+            if (!batch.isEmpty()) {
+                databaseTableDao.insertRows(batch);
+                inserted += batch.size();
+                batch.clear();
+            }
+        }
+        return inserted;
+    }
+
+    public void seedDataSet(final DataSet dataSet) {
+        seedDataSet(dataSet, 0);
+    }
+
+    public void seedDataSet(final DataSet dataSet, final int commitInterval) {
+        seedDataSet(dataSet, commitInterval, ResetStrategy.DELETE);
+    }
+
+    public void seedDataSet(final DataSet dataSet, final int commitInterval, final ResetStrategy resetStrategy) {
+        final List<List<DatabaseTable>> components = SeedingScheduler.components(dataSet.getDatabaseTables(),
+                schemaGraphIndex(dataSet.getDatabaseTables()));
+        logger.info("Seeding dataset as [{}] independent table components.", components.size());
+        final List<Runnable> tasks = new ArrayList<Runnable>(components.size());
+        for (final List<DatabaseTable> component : components) {
+            tasks.add(new Runnable() {
+                public void run() {
+                    seedComponent(dataSet, component, commitInterval, resetStrategy);
+                }
+            });
+        }
+        if (dataSource != null && SeedingSession.isConnectionBound(dataSource)) {
+            // a connection is pinned to this thread, every component must use it
+            for (final Runnable task : tasks) {
+                task.run();
+            }
+        } else {
+            seedingScheduler.execute(tasks);
+        }
+    }
+
+    public SeedingSession openSeedingSession(final int commitInterval) {
+        return SeedingSession.open(dataSource, commitInterval);
+    }
+
+    public TestTransaction beginTestTransaction() {
+        return TestTransaction.begin(dataSource, databaseTableDao.isSavepointReliable());
+    }
+
+    /**
+     * @param action what the DDL does, for the message
+     * @throws DatabaseTestException when a test transaction is active and the DDL would commit it
+     */
+    private void checkDdlAllowed(final String action) {
+        if (TestTransaction.isActive(dataSource) && !databaseTableDao.isDdlTransactional()) {
+            throw new DatabaseTestException("Cannot " + action + " within a test transaction, the DDL would commit "
+                    + "it on this database.");
+        }
+    }
+
+    /**
+     * <p>
+     * Empties, then inserts the rows of, the tables of a single component within one {@link SeedingSession}.  The
+     * tables are ordered parent before child.  The tables emptied are the child closure of the component.
+     * </p>
+     */
+    private void seedComponent(final DataSet dataSet, final List<DatabaseTable> databaseTables, final int commitInterval,
+                               final ResetStrategy resetStrategy) {
+        logger.debug("Seeding component of [{}] tables on thread [{}]",
+                databaseTables.size(), Thread.currentThread().getName());
+        final List<DatabaseTable> plan = deletePlan(databaseTables);
+        // a test transaction is rolled back, so what it seeds is never recorded
+        if (!dirtyTableTracking || TestTransaction.isActive(dataSource)) {
+            resetAndInsert(dataSet, databaseTables, plan, commitInterval, resetStrategy);
+            return;
+        }
+        // trigger DDL may commit, so the triggers are installed outside of the session
+        databaseTableDao.trackModifications(plan);
+        final List<DatabaseTable> dirtyPlan = dirtyTables(dataSet, plan);
+        if (dirtyPlan.isEmpty()) {
+            logger.debug("Skipping component of [{}] tables, none was modified since it was seeded.", plan.size());
+            return;
+        }
+        final Set<String> dirtyTableNames = new HashSet<String>();
+        for (final DatabaseTable table : dirtyPlan) {
+            dirtyTableNames.add(table.getTableName().toUpperCase());
+            seededTables.remove(table.getTableName().toUpperCase());
+        }
+        final List<DatabaseTable> dirtyTables = new ArrayList<DatabaseTable>();
+        for (final DatabaseTable table : databaseTables) {
+            if (dirtyTableNames.contains(table.getTableName().toUpperCase())) {
+                dirtyTables.add(table);
+            }
+        }
+        logger.debug("Resetting [{}] of the [{}] tables of the component.", dirtyPlan.size(), plan.size());
+        resetAndInsert(dataSet, dirtyTables, dirtyPlan, commitInterval, resetStrategy);
+        recordSeededTables(dataSet, plan);
+    }
+
+    private void resetAndInsert(final DataSet dataSet, final List<DatabaseTable> databaseTables,
+                                final List<DatabaseTable> plan, final int commitInterval,
+                                final ResetStrategy resetStrategy) {
+        // constraint DDL may commit, so the cycles are broken outside of the session
+        final List<DatabaseReferentialConstraint> cyclicConstraints = disableCyclicConstraints(plan);
+        try {
+            final SeedingSession session = openSeedingSession(commitInterval);
+            try {
+                if (resetStrategy == ResetStrategy.DELTA) {
+                    convergeTables(dataSet, databaseTables, plan, session);
+                    session.commit();
+                    return;
+                }
+                if (resetStrategy == ResetStrategy.TRUNCATE) {
+                    checkDdlAllowed("truncate tables " + tableNames(plan));
+                    databaseTableDao.truncateTables(plan);
+                } else {
+                    deleteTablesInOrder(plan);
+                }
+                disableTriggers(databaseTables);
+                try {
+                    final List<DataSet.DataSetRow> rows = new ArrayList<DataSet.DataSetRow>();
+                    for (final DatabaseTable databaseTable : databaseTables) {
+                        rows.addAll(dataSet.getRowsFor(databaseTable));
+                    }
+                    insertRows(rows, session);
+                } catch (RuntimeException e) {
+                    session.rollback();
+                    throw e;
+                } finally {
+                    enableTriggers(databaseTables);
+                }
+                session.commit();
+            } finally {
+                session.close();
+            }
+        } finally {
+            enableReferentialConstraints(cyclicConstraints);
+        }
+    }
+
+    /**
+     * <p>
+     * Converges the tables of the plan on the dataset with as few statements as possible.  The current rows of each
+     * table are streamed against its rows in the dataset, and only the rows that differ are deleted, updated or
+     * inserted.  A table without a primary key, or with a row in the dataset that does not set it, cannot be
+     * compared, so it and every table referencing it are emptied and seeded in full instead.
+     * </p>
+     * <p>
+     * Rows are inserted and updated parent before child, so that every row they reference exists, then deleted child
+     * before parent, once no row references them anymore.
+     * </p>
+     */
+    private void convergeTables(final DataSet dataSet, final List<DatabaseTable> databaseTables,
+                                final List<DatabaseTable> plan, final SeedingSession session) {
+        final SchemaGraphIndex index = schemaGraphIndex(plan);
+        final BitSet fullReset = new BitSet();
+        final Map<DatabaseTable, List<String>> keyColumns = new HashMap<DatabaseTable, List<String>>();
+        for (final DatabaseTable table : plan) {
+            final List<String> tableKeyColumns = primaryKeyColumns(table);
+            if (TableDelta.isKeyed(tableKeyColumns, dataSet.getRowsFor(table))) {
+                keyColumns.put(table, tableKeyColumns);
+            } else {
+                fullReset.or(index.childClosure(table));
+            }
+        }
+
+        final List<DatabaseTable> resetPlan = new ArrayList<DatabaseTable>();
+        final Map<DatabaseTable, TableDelta> tableDeltas = new HashMap<DatabaseTable, TableDelta>();
+        for (final DatabaseTable table : plan) {
+            if (fullReset.get(index.getId(table))) {
+                resetPlan.add(table);
+            } else {
+                final TableDelta delta = new TableDelta(table, keyColumns.get(table), dataSet.getRowsFor(table));
+                databaseTableDao.processDataRows(table, delta);
+                tableDeltas.put(table, delta);
+            }
+        }
+        final List<DatabaseTable> parentsFirst = index.parentsFirst(plan);
+        final List<TableDelta> deltas = new ArrayList<TableDelta>();
+        for (final DatabaseTable table : parentsFirst) {
+            if (tableDeltas.containsKey(table)) {
+                deltas.add(tableDeltas.get(table));
+            }
+        }
+
+        deleteTablesInOrder(resetPlan);
+        disableTriggers(databaseTables);
+        try {
+            // the rows of reset and converged tables alike, parent before child
+            final List<DataSet.DataSetRow> inserts = new ArrayList<DataSet.DataSetRow>();
+            for (final DatabaseTable table : parentsFirst) {
+                final TableDelta delta = tableDeltas.get(table);
+                inserts.addAll(delta == null ? dataSet.getRowsFor(table) : delta.getInserts());
+            }
+            int updates = 0;
+            int deletes = 0;
+            for (final TableDelta delta : deltas) {
+                updates += delta.getUpdates().size();
+                deletes += delta.getDeletes().size();
+            }
+            insertRows(inserts, session);
+            for (final TableDelta delta : deltas) {
+                for (final DataSet.DataSetRow row : delta.getUpdates()) {
+                    databaseTableDao.updateRow(delta.getTable(), delta.getKeyColumns(), row);
+                }
+            }
+            for (int i = deltas.size() - 1; i >= 0; i--) {
+                final TableDelta delta = deltas.get(i);
+                databaseTableDao.deleteRows(delta.getTable(), delta.getKeyColumns(), delta.getDeletes());
+            }
+            logger.debug("Converged [{}] tables with [{}] inserts, [{}] updates and [{}] deletes, resetting [{}].",
+                    new Object[]{plan.size(), inserts.size(), updates, deletes, resetPlan.size()});
+        } catch (RuntimeException e) {
+            session.rollback();
+            throw e;
+        } finally {
+            enableTriggers(databaseTables);
+        }
+    }
+
+    private List<String> primaryKeyColumns(final DatabaseTable table) {
+        final String tableName = table.getTableName().toUpperCase();
+        List<String> keyColumns = primaryKeyColumns.get(tableName);
+        if (keyColumns == null) {
+            keyColumns = databaseTableDao.loadPrimaryKeyColumns(table);
+            primaryKeyColumns.putIfAbsent(tableName, keyColumns);
+        }
+        return keyColumns;
+    }
+
+    /**
+     * @return the tables of the plan that were modified since they were seeded, or were seeded with other rows, and
+     * every table referencing them, in the order of the plan.
+     */
+    private List<DatabaseTable> dirtyTables(final DataSet dataSet, final List<DatabaseTable> plan) {
+        final Map<String, Long> modificationCounts = databaseTableDao.loadModificationCounts();
+        final SchemaGraphIndex index = schemaGraphIndex(plan);
+        final BitSet dirty = new BitSet();
+        for (final DatabaseTable table : plan) {
+            final String tableName = table.getTableName().toUpperCase();
+            final SeededTable seededTable = seededTables.get(tableName);
+            if (seededTable == null
+                    || !seededTable.isUnchanged(dataSet.getRowsFor(table), modificationCounts.get(tableName))) {
+                dirty.or(index.childClosure(table));
+            }
+        }
+        final List<DatabaseTable> dirtyPlan = new ArrayList<DatabaseTable>();
+        for (final DatabaseTable table : plan) {
+            if (dirty.get(index.getId(table))) {
+                dirtyPlan.add(table);
+            }
+        }
+        return dirtyPlan;
+    }
+
+    private void recordSeededTables(final DataSet dataSet, final List<DatabaseTable> plan) {
+        final Map<String, Long> modificationCounts = databaseTableDao.loadModificationCounts();
+        for (final DatabaseTable table : plan) {
+            final String tableName = table.getTableName().toUpperCase();
+            seededTables.put(tableName, new SeededTable(dataSet.getRowsFor(table), modificationCounts.get(tableName)));
+        }
+    }
+
+    private void insertRows(final List<DataSet.DataSetRow> rows, final SeedingSession session) {
+        final int commitInterval = session.getCommitInterval();
+        if (commitInterval == 0) {
+            databaseTableDao.insertRows(rows);
+            session.rowsInserted(rows.size());
+            return;
+        }
+        for (int start = 0; start < rows.size(); start += commitInterval) {
+            final List<DataSet.DataSetRow> chunk = rows.subList(start, Math.min(start + commitInterval, rows.size()));
+            databaseTableDao.insertRows(chunk);
+            session.rowsInserted(chunk.size());
         }
     }
 
     public void deleteTables(Collection<DatabaseTable> databaseTables) {
-        for (DatabaseTable table : databaseTables) {
-            deleteDatabaseTable(table);
+        final List<DatabaseTable> plan = deletePlan(databaseTables);
+        final List<DatabaseReferentialConstraint> cyclicConstraints = disableCyclicConstraints(plan);
+        try {
+            deleteTablesInOrder(plan);
+        } finally {
+            enableReferentialConstraints(cyclicConstraints);
+        }
+    }
+
+    private void deleteTablesInOrder(final List<DatabaseTable> plan) {
+        for (DatabaseTable table : plan) {
+            databaseTableDao.deleteTable(table);
         }
     }
 
+    /**
+     * <p>
+     * No order of the tables of a foreign key cycle satisfies its constraints, so the constraints within each cycle
+     * are disabled until the tables have been emptied and seeded.
+     * </p>
+     * @return the constraints that were disabled
+     */
+    private List<DatabaseReferentialConstraint> disableCyclicConstraints(final List<DatabaseTable> plan) {
+        final List<DatabaseReferentialConstraint> cyclicConstraints = schemaGraphIndex(plan).cyclicConstraints(plan);
+        if (cyclicConstraints.isEmpty()) {
+            return cyclicConstraints;
+        }
+        checkDdlAllowed("disable the constraints " + constraintNames(cyclicConstraints) + " of a foreign key cycle");
+        logger.warn("Tables {} form foreign key cycles, disabling constraints {} while seeding them.",
+                tableNames(plan), constraintNames(cyclicConstraints));
+        final List<DatabaseReferentialConstraint> disabled = new ArrayList<DatabaseReferentialConstraint>();
+        try {
+            for (final DatabaseReferentialConstraint constraint : cyclicConstraints) {
+                databaseTableDao.disableReferentialConstraint(constraint);
+                disabled.add(constraint);
+            }
+        } catch (RuntimeException e) {
+            enableReferentialConstraints(disabled);
+            throw e;
+        }
+        return disabled;
+    }
+
+    private void enableReferentialConstraints(final List<DatabaseReferentialConstraint> constraints) {
+        for (final DatabaseReferentialConstraint constraint : constraints) {
+            try {
+                databaseTableDao.enableReferentialConstraint(constraint);
+            } catch (RuntimeException e) {
+                logger.error("Failed to enable constraint [" + constraint.getConstraintName() + "]", e);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * The tables that must be deleted to empty the given tables: the given tables and their complete child
+     * referential constraint closure.  Each table appears exactly once, after every one of its children (descending
+     * {@link SchemaGraphIndex} rank), so deleting the tables in order never violates a foreign key outside of a
+     * cycle.  Plans are cached by the set of tables they were computed for.
+     * </p>
+     * @param databaseTables the tables to empty
+     * @return the tables to delete, in order
+     */
+    List<DatabaseTable> deletePlan(final Collection<DatabaseTable> databaseTables) {
+        final Set<String> key = new TreeSet<String>();
+        for (final DatabaseTable databaseTable : databaseTables) {
+            key.add(databaseTable.qualifiedName());
+        }
+        List<DatabaseTable> plan = deletePlans.get(key);
+        if (plan == null) {
+            plan = Collections.unmodifiableList(schemaGraphIndex(databaseTables).deletePlan(databaseTables));
+            deletePlans.putIfAbsent(key, plan);
+            logger.debug("Delete plan for tables {} is {}", key, tableNames(plan));
+        }
+        return plan;
+    }
+
+    private static List<String> tableNames(final Collection<DatabaseTable> databaseTables) {
+        final List<String> tableNames = new ArrayList<String>(databaseTables.size());
+        for (final DatabaseTable databaseTable : databaseTables) {
+            tableNames.add(databaseTable.qualifiedName());
+        }
+        return tableNames;
+    }
+
+    private static List<String> constraintNames(final Collection<DatabaseReferentialConstraint> constraints) {
+        final List<String> constraintNames = new ArrayList<String>(constraints.size());
+        for (final DatabaseReferentialConstraint constraint : constraints) {
+            constraintNames.add(constraint.getConstraintName());
+        }
+        return constraintNames;
+    }
+
     public DataSet loadDataSetFromTables(final Collection<DatabaseTable> databaseTables) {
         final DataSet dataSet = new DataSet();
         for (final DatabaseTable databaseTable : databaseTables) {
@@ -169,18 +861,43 @@ public class DatabaseTableServiceImpl implements DatabaseTableService {
      * @return the given table with a complete structure
      */
     private DatabaseTable loadCompleteDatabaseTableStructure(DatabaseTable table) {
+        table = loadDatabaseTable(table);
+        // registered before following the constraints, so that cycles resolve to this table
+        schemaMetadataCache.loading(table);
+        table.setChildConstraints(loadChildConstraints(table));
+        table.setDatabaseTriggers(databaseTableDao.getTriggersForTable(table));
+        table.setColumns(databaseTableDao.loadColumns(table));
+        return table;
+    }
+
+    /**
+     * <p>
+     * Loads the table and its columns only, leaving its child constraints and triggers to be resolved through the
+     * cache's resolver, i.e. the {@link LazyStructureResolver} of a live service.
+     * </p>
+     */
+    private DatabaseTable loadLazyDatabaseTableStructure(DatabaseTable table) {
+        table = loadDatabaseTable(table);
+        table.setColumns(databaseTableDao.loadColumns(table));
+        table.setStructureResolver(schemaMetadataCache.getStructureResolver(), false, false, false);
+        return table;
+    }
+
+    private DatabaseTable loadDatabaseTable(final DatabaseTable table) {
         try {
-            table = databaseTableDao.loadDatabaseTable(table);
+            return databaseTableDao.loadDatabaseTable(table);
         } catch (EmptyResultDataAccessException erdae) {
-            StringBuilder exceptionBuilder = new StringBuilder()
-                    .append("Failed to load table [").append(table.getTableName()).append("]");
-            if (hasText(table.getOwner())) {
-                exceptionBuilder.append(" in schema[").append(table.getOwner()).append("]");
-            }
-            exceptionBuilder.append(" from the database.");
-            throw new DatabaseTestException(exceptionBuilder.toString(), erdae);
+            throw new DatabaseTestException(tableNotFoundMessage(table), erdae);
         }
-        // load the child constraints
+    }
+
+    /**
+     * <p>
+     * Loads the child constraints of the table, loading the structure of each child table and linking it to the
+     * table.
+     * </p>
+     */
+    private List<DatabaseReferentialConstraint> loadChildConstraints(final DatabaseTable table) {
         final List<DatabaseReferentialConstraint> childConstraints = databaseTableDao.loadChildTableReferences(table);
         for (DatabaseReferentialConstraint childConstraint : childConstraints) {
             final DatabaseTable childTable = loadDatabaseTableStructure(childConstraint.getChildTable());
@@ -189,14 +906,101 @@ public class DatabaseTableServiceImpl implements DatabaseTableService {
 
             childTable.addParentConstraint(childConstraint);
         }
+        return childConstraints;
+    }
 
-        table.setChildConstraints(childConstraints);
-        table.setDatabaseTriggers(databaseTableDao.getTriggersForTable(table));
-        return table;
+    private static String tableNotFoundMessage(final DatabaseTable table) {
+        StringBuilder exceptionBuilder = new StringBuilder()
+                .append("Failed to load table [").append(table.getTableName()).append("]");
+        if (hasText(table.getOwner())) {
+            exceptionBuilder.append(" in schema[").append(table.getOwner()).append("]");
+        }
+        exceptionBuilder.append(" from the database.");
+        return exceptionBuilder.toString();
     }
 
-    private interface FlashbackTableCallback {
-        void flashbackTable(DatabaseTable databaseTable, Long databaseScn);
+    /**
+     * Resolves the structure of lazily loaded tables under the cache's load lock, so that each part is resolved once
+     * and the child tables it loads are published with it.
+     */
+    private class LazyStructureResolver implements DatabaseTable.StructureResolver {
+
+        public void resolveChildConstraints(final DatabaseTable table) {
+            final boolean[] resolved = new boolean[1];
+            schemaMetadataCache.resolve(new SchemaMetadataCache.Loader() {
+                public DatabaseTable load() {
+                    if (!table.isChildConstraintsResolved()) {
+                        table.setChildConstraints(loadChildConstraints(table));
+                        resolved[0] = true;
+                    }
+                    return table;
+                }
+            });
+            if (resolved[0]) {
+                writeSchemaCacheFile();
+            }
+        }
+
+        public void resolveParentConstraints(final DatabaseTable table) {
+            final boolean[] resolved = new boolean[1];
+            schemaMetadataCache.resolve(new SchemaMetadataCache.Loader() {
+                public DatabaseTable load() {
+                    if (!table.isParentConstraintsResolved()) {
+                        for (final DatabaseTable parentTable : databaseTableDao.loadParentTables(table)) {
+                            // links the parent's child constraints, including those to this table
+                            loadDatabaseTableStructure(parentTable).getChildConstraints();
+                        }
+                        table.parentConstraintsResolved();
+                        resolved[0] = true;
+                    }
+                    return table;
+                }
+            });
+            if (resolved[0]) {
+                writeSchemaCacheFile();
+            }
+        }
+
+        public void resolveDatabaseTriggers(final DatabaseTable table) {
+            final boolean[] resolved = new boolean[1];
+            schemaMetadataCache.resolve(new SchemaMetadataCache.Loader() {
+                public DatabaseTable load() {
+                    if (!table.isDatabaseTriggersResolved()) {
+                        table.setDatabaseTriggers(databaseTableDao.getTriggersForTable(table));
+                        resolved[0] = true;
+                    }
+                    return table;
+                }
+            });
+            if (resolved[0]) {
+                writeSchemaCacheFile();
+            }
+        }
     }
 
+
+    /**
+     * <p>
+     * The rows a table was last seeded with, and its modification count once seeded.
+     * </p>
+     */
+    private static final class SeededTable {
+
+        private final List<DataSet.DataSetRow> rows;
+
+        private final Long modificationCount;
+
+        private SeededTable(final List<DataSet.DataSetRow> rows, final Long modificationCount) {
+            this.rows = new ArrayList<DataSet.DataSetRow>(rows);
+            this.modificationCount = modificationCount;
+        }
+
+        /**
+         * @return true when the table was seeded with the same row instances and has not been modified since.
+         */
+        boolean isUnchanged(final List<DataSet.DataSetRow> expectedRows, final Long currentModificationCount) {
+            return modificationCount != null && modificationCount.equals(currentModificationCount)
+                    && rows.equals(expectedRows);
+        }
+    }
 }
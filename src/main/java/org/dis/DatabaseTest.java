@@ -10,4 +10,23 @@ import java.lang.annotation.Target;
 public @interface DatabaseTest {
     String databaseTableService() default "databaseTableService";
     boolean flashback() default false;
+
+    /**
+     * The number of inserted rows after which seeding commits.  Zero seeds each dataset in a single transaction.
+     */
+    int commitInterval() default 0;
+
+    /**
+     * How the tables of each dataset are emptied before it is seeded.
+     */
+    ResetStrategy reset() default ResetStrategy.DELETE;
+
+    /**
+     * Seeds each test method in a {@link TestTransaction} shared with the test, which is rolled back after the method
+     * rather than committed, so the tables need no flashback or reset.  The data set of the class is seeded once in a
+     * transaction spanning the whole class, and each method rolls back to a savepoint taken on top of it.  On
+     * databases whose savepoints cannot be relied upon, each method is seeded with the data set of the class in its own
+     * transaction instead.
+     */
+    boolean rollback() default false;
 }
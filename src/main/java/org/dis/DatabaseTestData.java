@@ -5,8 +5,20 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+/**
+ * <p>
+ * The data set files seeded before a test method, as classpath resources.  A file is loaded according to its
+ * extension: <code>.xml</code> files by the {@link org.dis.loader.XMLFileDataSetLoader}, <code>.csv</code> or
+ * <code>.tsv</code> files, optionally gzipped, by the {@link org.dis.loader.DelimitedFileDataSetLoader}, which holds the
+ * rows of a single table per file, and binary <code>.dsb</code> files by the
+ * {@link org.dis.loader.BinaryDataSetLoader}.  The rows of several files are seeded as a single data set.
+ * </p>
+ * <p>
+ * On a test class, the data set is seeded once before its first test method, beneath the data sets of its methods.
+ * </p>
+ */
 @Retention(RetentionPolicy.RUNTIME)
-@Target(ElementType.METHOD)
+@Target({ElementType.TYPE, ElementType.METHOD})
 public @interface DatabaseTestData {
-    String value();
+    String[] value();
 }
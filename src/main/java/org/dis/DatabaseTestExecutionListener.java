@@ -1,5 +1,8 @@
 package org.dis;
 
+import org.dis.loader.BinaryDataSetLoader;
+import org.dis.loader.DataSetLoader;
+import org.dis.loader.DelimitedFileDataSetLoader;
 import org.dis.loader.XMLFileDataSetLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,6 +11,7 @@ import org.springframework.test.context.TestContext;
 import org.springframework.test.context.TestExecutionListener;
 
 import java.lang.reflect.Method;
+import java.sql.Savepoint;
 import java.util.*;
 
 public class DatabaseTestExecutionListener implements TestExecutionListener {
@@ -18,9 +22,19 @@ public class DatabaseTestExecutionListener implements TestExecutionListener {
 
     private final Map<Class, Set<DataSet>> dataSets;
 
+    // The transactions spanning a test class, and those of its current test method
+    private final Map<Class<?>, TestTransaction> classTransactions;
+
+    private final Map<Class<?>, TestTransaction> methodTransactions;
+
+    private final Map<Class<?>, Savepoint> methodSavepoints;
+
     public DatabaseTestExecutionListener() {
         databaseScns = new HashMap<Class, Long>();
         dataSets = new HashMap<Class, Set<DataSet>>();
+        classTransactions = new HashMap<Class<?>, TestTransaction>();
+        methodTransactions = new HashMap<Class<?>, TestTransaction>();
+        methodSavepoints = new HashMap<Class<?>, Savepoint>();
     }
 
     /**
@@ -28,6 +42,10 @@ public class DatabaseTestExecutionListener implements TestExecutionListener {
      * Load the current database scn before the test class method are executed.  This allows us to flashback at the
      * completion of all of the test methods, rather than after each one.  Flashing back takes a long time.
      * </p>
+     * <p>
+     * The data set of the class, if any, is seeded here, within a transaction spanning the class when the methods are
+     * rolled back.
+     * </p>
      *
      * @param testContext The context of the test
      * @throws Exception
@@ -37,6 +55,10 @@ public class DatabaseTestExecutionListener implements TestExecutionListener {
         final Class testClass = testContext.getTestClass();
         DatabaseTest databaseTest = AnnotationUtils.findAnnotation(testClass, DatabaseTest.class);
         if (databaseTest != null) {
+            if (databaseTest.flashback() && databaseTest.rollback()) {
+                throw new DatabaseTestException("Class [" + testClass.getName()
+                        + "] cannot both flash back and roll back its tables.");
+            }
             getDatabaseTableService(testContext);
             if (databaseTest.flashback()) {
                 final DatabaseTableService databaseTableService = getDatabaseTableService(testContext);
@@ -46,6 +68,21 @@ public class DatabaseTestExecutionListener implements TestExecutionListener {
             } else {
                 logger.info("No flashback present for class[{}]", testClass.getName());
             }
+            final DatabaseTestData databaseSetup = AnnotationUtils.findAnnotation(testClass, DatabaseTestData.class);
+            if (databaseSetup != null) {
+                final DatabaseTableService databaseTableService = getDatabaseTableService(testContext);
+                if (databaseTest.rollback()) {
+                    final TestTransaction classTransaction = databaseTableService.beginTestTransaction();
+                    if (!classTransaction.isSavepointReliable()) {
+                        logger.info("Savepoints are unreliable, seeding the class data set of [{}] for each test "
+                                + "method.", testClass.getName());
+                        classTransaction.rollback();
+                        return;
+                    }
+                    classTransactions.put(testClass, classTransaction);
+                }
+                seedDataSet(databaseTableService, databaseTest, testClass, databaseSetup);
+            }
         }
     }
 
@@ -59,36 +96,54 @@ public class DatabaseTestExecutionListener implements TestExecutionListener {
         final Method testMethod = testContext.getTestMethod();
         final Class testClass = testContext.getTestClass();
         DatabaseTest databaseTest = AnnotationUtils.findAnnotation(testClass, DatabaseTest.class);
-        if (testMethod.isAnnotationPresent(DatabaseTestData.class)) {
-            if (databaseTest == null) {
-                throw new DatabaseTestException(
-                        "Cannot setup test data on a class that isn't specified as a DatabaseTest");
+        if (testMethod.isAnnotationPresent(DatabaseTestData.class) && databaseTest == null) {
+            throw new DatabaseTestException(
+                    "Cannot setup test data on a class that isn't specified as a DatabaseTest");
+        }
+        if (databaseTest != null && databaseTest.rollback()) {
+            final TestTransaction classTransaction = classTransactions.get(testClass);
+            if (classTransaction != null) {
+                methodSavepoints.put(testClass, classTransaction.setSavepoint());
+            } else {
+                final DatabaseTableService databaseTableService = getDatabaseTableService(testContext);
+                methodTransactions.put(testClass, databaseTableService.beginTestTransaction());
+                final DatabaseTestData classSetup = AnnotationUtils.findAnnotation(testClass, DatabaseTestData.class);
+                if (classSetup != null) {
+                    seedDataSet(databaseTableService, databaseTest, testClass, classSetup);
+                }
             }
-
+        }
+        if (testMethod.isAnnotationPresent(DatabaseTestData.class)) {
             final DatabaseTestData databaseSetup = testMethod.getAnnotation(DatabaseTestData.class);
-            final DatabaseTableService databaseTableService = getDatabaseTableService(testContext);
-            final DataSet dataSet = loadDataSet(databaseTableService, databaseSetup);
-
-            if (databaseTest.flashback()) {
-                final Long databaseScn = databaseScns.get(testClass);
-                final StringBuilder builder = new StringBuilder().append(
-                        "The flashback commands required to revert these changes are:\n");
-                databaseTableService.logFlashbackTables(dataSet.getDatabaseTables(), databaseScn, builder);
-                logger.info(builder.toString());
-            }
-            saveDataSet(testClass, dataSet);
-            insertDataSet(databaseTableService, dataSet);
+            seedDataSet(getDatabaseTableService(testContext), databaseTest, testClass, databaseSetup);
         }
     }
 
+    /**
+     * <p>
+     * Rolls back everything the test method seeded and did, when its class is rolled back.
+     * </p>
+     */
     public void afterTestMethod(TestContext testContext)
             throws Exception {
-        // do nothing
+        final Class testClass = testContext.getTestClass();
+        final Savepoint savepoint = methodSavepoints.remove(testClass);
+        if (savepoint != null) {
+            classTransactions.get(testClass).rollbackToSavepoint(savepoint);
+        }
+        final TestTransaction methodTransaction = methodTransactions.remove(testClass);
+        if (methodTransaction != null) {
+            methodTransaction.rollback();
+        }
     }
 
     public final void afterTestClass(TestContext testContext)
             throws Exception {
         final Class testClass = testContext.getTestClass();
+        final TestTransaction classTransaction = classTransactions.remove(testClass);
+        if (classTransaction != null) {
+            classTransaction.rollback();
+        }
         DatabaseTest databaseTest = AnnotationUtils.findAnnotation(testClass, DatabaseTest.class);
         if (databaseTest != null) {
             if (databaseTest.flashback()) {
@@ -113,33 +168,66 @@ public class DatabaseTestExecutionListener implements TestExecutionListener {
         }
     }
 
+    /**
+     * <p>
+     * Returns the parsed and resolved dataset from the {@link DataSetCache}, so that a file shared by many test
+     * methods is only parsed and resolved once.  The rows of several files are combined in the order the files are
+     * given.
+     * </p>
+     */
     private DataSet loadDataSet(final DatabaseTableService databaseTableService, final DatabaseTestData databaseSetup) {
-        final String testData = databaseSetup.value();
-        final XMLFileDataSetLoader dataSetLoader = new XMLFileDataSetLoader(testData);
-        final DataSet dataSet = dataSetLoader.load();
-        logger.info("Loaded dataset from file [{}]", testData);
-        for (DataSet.DataSetRow row : dataSet.getRows()) {
-            final DatabaseTable databaseTable = row.getDatabaseTable();
-            row.setDatabaseTable(databaseTableService.loadDatabaseTableStructure(databaseTable));
-            logger.debug("Loaded database structure for table [{}]", databaseTable.qualifiedName());
+        final String[] testData = databaseSetup.value();
+        if (testData.length == 1) {
+            return loadDataSet(databaseTableService, testData[0]);
+        }
+        final DataSet dataSet = new DataSet();
+        for (final String resource : testData) {
+            dataSet.addRows(loadDataSet(databaseTableService, resource).getRows());
         }
-        logger.info("Loaded dataset table structure.");
         return dataSet;
     }
 
-    private void insertDataSet(final DatabaseTableService databaseTableService, final DataSet dataSet) {
-        final Collection<DatabaseTable> databaseTables = dataSet.getDatabaseTables();
-        logger.info("Deleting tables for dataset preparation.");
-        databaseTableService.deleteTables(databaseTables);
+    private DataSet loadDataSet(final DatabaseTableService databaseTableService, final String testData) {
+        return databaseTableService.getDataSetCache().get(testData, new DataSetCache.Loader() {
+            public DataSet load() {
+                final DataSet dataSet = newDataSetLoader(testData).load();
+                logger.info("Loaded dataset from file [{}]", testData);
+                databaseTableService.resolveDataSet(dataSet);
+                logger.info("Loaded dataset table structure.");
+                return dataSet;
+            }
+        });
+    }
+
+    private DataSetLoader newDataSetLoader(final String testData) {
+        if (BinaryDataSetLoader.supports(testData)) {
+            return new BinaryDataSetLoader(testData);
+        } else if (DelimitedFileDataSetLoader.supports(testData)) {
+            return new DelimitedFileDataSetLoader(testData);
+        }
+        return new XMLFileDataSetLoader(testData);
+    }
 
-        logger.info("Disabling triggers for dataset insertion;");
-        databaseTableService.disableTriggers(databaseTables);
+    private void seedDataSet(final DatabaseTableService databaseTableService, final DatabaseTest databaseTest,
+                             final Class<?> testClass, final DatabaseTestData databaseSetup) {
+        final DataSet dataSet = loadDataSet(databaseTableService, databaseSetup);
 
-        logger.info("Inserting dataset into database.");
-        databaseTableService.insertDataSet(dataSet);
+        if (databaseTest.flashback()) {
+            final Long databaseScn = databaseScns.get(testClass);
+            final StringBuilder builder = new StringBuilder().append(
+                    "The flashback commands required to revert these changes are:\n");
+            databaseTableService.logFlashbackTables(dataSet.getDatabaseTables(), databaseScn, builder);
+            logger.info(builder.toString());
+        }
+        saveDataSet(testClass, dataSet);
+        insertDataSet(databaseTableService, dataSet, databaseTest.commitInterval(), databaseTest.reset());
+    }
 
-        logger.info("Enabling triggers for dataset insertion;");
-        databaseTableService.enableTriggers(databaseTables);
+    private void insertDataSet(final DatabaseTableService databaseTableService, final DataSet dataSet,
+                               final int commitInterval, final ResetStrategy resetStrategy) {
+        logger.info("Seeding dataset into database.");
+        databaseTableService.seedDataSet(dataSet, commitInterval, resetStrategy);
+        logger.info("Seeded dataset into database.");
     }
 
     private void saveDataSet(Class testClass, DataSet dataSet) {
@@ -25,6 +25,18 @@ public class DatabaseTrigger {
         this.owner = owner;
     }
 
+    public DatabaseTable getDatabaseTable() {
+        return databaseTable;
+    }
+
+    public String getTriggerName() {
+        return triggerName;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
     public String getQualifiedName() {
         return new StringBuilder()
                 .append(owner).append(".").append(triggerName).toString();
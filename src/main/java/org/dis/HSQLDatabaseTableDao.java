@@ -2,22 +2,49 @@ package org.dis;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.DatabaseMetaDataCallback;
 import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.jdbc.support.MetaDataAccessException;
 import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
 
 import javax.sql.DataSource;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class HSQLDatabaseTableDao extends AbstractDatabaseTableDao {
 
     private static final Logger log = LoggerFactory.getLogger(HSQLDatabaseTableDao.class);
 
+    private static final String SCHEMA_TABLES_SQL =
+            "select table_catalog as owner, table_name from information_schema.tables" +
+            " where table_type = 'BASE TABLE' and table_schema not in ('INFORMATION_SCHEMA', 'SYSTEM_LOBS')";
+
+    private static final String SCHEMA_REFERENCES_SQL =
+            "select rc.constraint_name, parent.table_catalog as parent_owner, parent.table_name as parent_table_name," +
+            " child.table_catalog as owner, child.table_name from information_schema.referential_constraints rc" +
+            " join information_schema.table_constraints child on rc.constraint_schema = child.constraint_schema and rc.constraint_name = child.constraint_name" +
+            " join information_schema.table_constraints parent on rc.unique_constraint_schema = parent.constraint_schema and rc.unique_constraint_name = parent.constraint_name";
+
+    private static final String SCHEMA_FINGERPRINT_SQL =
+            "select table_name || '.' || column_name || ':' || data_type from information_schema.columns" +
+            " where table_schema not in ('INFORMATION_SCHEMA', 'SYSTEM_LOBS')" +
+            " union all select constraint_name || ':' || unique_constraint_name from information_schema.referential_constraints";
+
+    private static final String DROP_MODIFICATION_TRIGGER_SQL = "drop trigger {0} if exists";
+
+    private static final String CREATE_MODIFICATION_TRIGGER_SQL =
+            "create trigger {0} after {1} on {2} for each statement" +
+            " update dis_table_modifications set modifications = modifications + 1 where table_name = ''{3}''";
+
+    private static final String TRUNCATE_TABLE_SQL = "truncate table {0}";
+
     private final DataSource dataSource;
 
     public HSQLDatabaseTableDao(final DataSource dataSource) {
@@ -42,10 +69,104 @@ public class HSQLDatabaseTableDao extends AbstractDatabaseTableDao {
         }
     }
 
+    /**
+     * <p>
+     * HSQLDB 2.0 also undoes the last change made before a savepoint when rolling back to it.
+     * </p>
+     */
+    @Override
+    public boolean isSavepointReliable() {
+        return false;
+    }
+
+    @Override
+    public void truncateTable(final DatabaseTable table) {
+        truncateTables(Collections.singletonList(table));
+    }
+
+    /**
+     * <p>
+     * HSQL cannot disable a constraint, and refuses to truncate a table referenced by a foreign key even when
+     * referential integrity is switched off or the referencing rows are gone.  The tables referenced by others are
+     * emptied with <code>delete</code> instead, after the tables referencing them.
+     * </p>
+     */
+    @Override
+    public void truncateTables(final List<DatabaseTable> orderedTables) {
+        for (final DatabaseTable table : orderedTables) {
+            if (table.getChildConstraints().isEmpty()) {
+                getJdbcTemplate().execute(sql(TRUNCATE_TABLE_SQL, table.qualifiedName()));
+            } else {
+                deleteTable(table);
+            }
+        }
+    }
+
     public List<DatabaseTrigger> getTriggersForTable(DatabaseTable table) {
         return new ArrayList<DatabaseTrigger>();
     }
 
+    /**
+     * <p>
+     * HSQL triggers fire for a single event, so each table gets one trigger per modifying statement type.
+     * </p>
+     */
+    @Override
+    protected List<String> modificationTrackingSql(final DatabaseTable table) {
+        final String tableName = table.getTableName().toUpperCase();
+        final List<String> statements = new ArrayList<String>();
+        for (final String event : new String[]{"insert", "update", "delete"}) {
+            final String triggerName = "dis_mod_" + event + "_" + tableName;
+            statements.add(sql(DROP_MODIFICATION_TRIGGER_SQL, triggerName));
+            statements.add(sql(CREATE_MODIFICATION_TRIGGER_SQL, triggerName, event, table.qualifiedName(), tableName));
+        }
+        return statements;
+    }
+
+    @Override
+    protected List<DatabaseTable> loadSchemaTables(final DatabaseTable table) {
+        return getSimpleJdbcTemplate().query(SCHEMA_TABLES_SQL, new RowMapper<DatabaseTable>() {
+            public DatabaseTable mapRow(final ResultSet rs, final int rowNum) throws SQLException {
+                return new DatabaseTable(rs.getString("owner"), rs.getString("table_name"));
+            }
+        });
+    }
+
+    @Override
+    protected List<DatabaseReferentialConstraint> loadSchemaReferentialConstraints(final DatabaseTable table) {
+        return getSimpleJdbcTemplate().query(SCHEMA_REFERENCES_SQL, new RowMapper<DatabaseReferentialConstraint>() {
+            public DatabaseReferentialConstraint mapRow(final ResultSet rs, final int rowNum) throws SQLException {
+                final DatabaseReferentialConstraint constraint = new DatabaseReferentialConstraint();
+                constraint.setConstraintName(rs.getString("constraint_name"));
+                constraint.setParentTable(new DatabaseTable(rs.getString("parent_owner"), rs.getString("parent_table_name")));
+                constraint.setChildTable(new DatabaseTable(rs.getString("owner"), rs.getString("table_name")));
+                return constraint;
+            }
+        });
+    }
+
+    /**
+     * <p>
+     * HSQL keeps no DDL timestamp or version, so the fingerprint is a hash of the columns and foreign keys of every
+     * table.
+     * </p>
+     */
+    public String getSchemaFingerprint() {
+        final List<String> entries = new ArrayList<String>(getSimpleJdbcTemplate().query(SCHEMA_FINGERPRINT_SQL,
+                new RowMapper<String>() {
+                    public String mapRow(final ResultSet rs, final int rowNum) throws SQLException {
+                        return rs.getString(1);
+                    }
+                }));
+        Collections.sort(entries);
+        return DigestUtils.md5DigestAsHex(StringUtils.collectionToCommaDelimitedString(entries).getBytes());
+    }
+
+    @Override
+    protected List<DatabaseTrigger> loadSchemaTriggers(final DatabaseTable table) {
+        return new ArrayList<DatabaseTrigger>();
+    }
+
     private static final class DatabaseReferentialConstraintCallBack implements DatabaseMetaDataCallback {
 
         private final DatabaseTable table;
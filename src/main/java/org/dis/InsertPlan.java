@@ -0,0 +1,75 @@
+package org.dis;
+
+import org.springframework.jdbc.core.SqlTypeValue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * A pre-rendered insert statement for one table and column set.  It holds:
+ * <ul>
+ *  <li>The sorted column names, in bind order</li>
+ *  <li>The single row insert statement</li>
+ *  <li>The SQL type to bind each column with, {@link SqlTypeValue#TYPE_UNKNOWN} when it is not known</li>
+ *  <li>The multi-row insert statements rendered so far, by row count.</li>
+ * </ul>
+ * Plans are immutable apart from the multi-row statements, which are rendered at most once per row count, so they
+ * can be shared between threads.
+ * </p>
+ */
+public final class InsertPlan {
+
+    private final List<String> columns;
+
+    private final String sql;
+
+    private final int[] bindTypes;
+
+    private final ConcurrentMap<Integer, String> multiRowStatements;
+
+    public InsertPlan(final List<String> columns, final String sql, final int[] bindTypes) {
+        this.columns = Collections.unmodifiableList(columns);
+        this.sql = sql;
+        this.bindTypes = bindTypes.clone();
+        this.multiRowStatements = new ConcurrentHashMap<Integer, String>();
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public int getBindType(final int columnIndex) {
+        return bindTypes[columnIndex];
+    }
+
+    /**
+     * @param rowCount the number of rows in the statement
+     * @return <code>insert into t (cols) values (...), (...), ...</code> with <code>rowCount</code> value lists.
+     */
+    public String getMultiRowSql(final int rowCount) {
+        String multiRowSql = multiRowStatements.get(rowCount);
+        if (multiRowSql == null) {
+            final String values = sql.substring(sql.lastIndexOf('('));
+            final StringBuilder builder = new StringBuilder(sql.length() + (values.length() + 2) * rowCount).append(sql);
+            for (int i = 1; i < rowCount; i++) {
+                builder.append(", ").append(values);
+            }
+            multiRowSql = builder.toString();
+            multiRowStatements.putIfAbsent(rowCount, multiRowSql);
+        }
+        return multiRowSql;
+    }
+
+    @Override
+    public String toString() {
+        return sql + " " + Arrays.toString(bindTypes);
+    }
+}
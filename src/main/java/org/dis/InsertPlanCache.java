@@ -0,0 +1,132 @@
+package org.dis;
+
+import org.springframework.util.Assert;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * A bounded, least recently used cache of {@link InsertPlan}s, keyed by database, table and sorted column set.  All
+ * access is thread-safe, so one cache can be shared by every DAO, thread and Spring context in the JVM; the
+ * {@link #shared()} instance is used unless another one is configured.
+ * </p>
+ */
+public final class InsertPlanCache {
+
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    private static final InsertPlanCache SHARED = new InsertPlanCache(DEFAULT_MAX_SIZE);
+
+    private final Map<String, InsertPlan> plans;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    public InsertPlanCache(final int maxSize) {
+        Assert.isTrue(maxSize > 0, "maxSize must be greater than zero.");
+        plans = new LinkedHashMap<String, InsertPlan>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, InsertPlan> eldest) {
+                if (size() > maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static InsertPlanCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * <p>
+     * Returns the cached plan for the table and columns, creating it through the factory on a miss.  The factory is
+     * called outside of the cache lock, so two threads missing on the same key at once may both create a plan; the
+     * first one cached wins.
+     * </p>
+     * @param database  identifies the database the plan is for
+     * @param table     the table to insert into
+     * @param columns   the sorted columns to insert
+     * @param factory   creates the plan on a miss
+     * @return the plan
+     */
+    public InsertPlan get(final String database, final DatabaseTable table, final List<String> columns,
+                          final InsertPlanFactory factory) {
+        final String key = key(database, table, columns);
+        InsertPlan plan;
+        synchronized (plans) {
+            plan = plans.get(key);
+        }
+        if (plan != null) {
+            hits.incrementAndGet();
+            return plan;
+        }
+        misses.incrementAndGet();
+        final InsertPlan created = factory.createInsertPlan(table, columns);
+        synchronized (plans) {
+            plan = plans.get(key);
+            if (plan == null) {
+                plans.put(key, created);
+                plan = created;
+            }
+        }
+        return plan;
+    }
+
+    public void clear() {
+        synchronized (plans) {
+            plans.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (plans) {
+            return plans.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("InsertPlanCache[size=").append(size())
+                .append(", hits=").append(getHits())
+                .append(", misses=").append(getMisses())
+                .append(", evictions=").append(getEvictions())
+                .append("]").toString();
+    }
+
+    private static String key(final String database, final DatabaseTable table, final List<String> columns) {
+        final StringBuilder key = new StringBuilder()
+                .append(database).append('|').append(table.getOwner()).append('.').append(table.getTableName());
+        for (final String column : columns) {
+            key.append('|').append(column.toUpperCase());
+        }
+        return key.toString();
+    }
+
+    /**
+     * Creates a plan on a cache miss.
+     */
+    public interface InsertPlanFactory {
+        InsertPlan createInsertPlan(DatabaseTable table, List<String> columns);
+    }
+}
@@ -0,0 +1,32 @@
+package org.dis;
+
+/**
+ * <p>
+ * How a {@link DatabaseTableDao} writes dataset rows into the database.
+ * </p>
+ */
+public enum InsertStrategy {
+
+    /**
+     * One insert statement executed per row.
+     */
+    ROW_BY_ROW,
+
+    /**
+     * Rows of the same table and column set are bound into a single prepared statement and flushed with
+     * <code>executeBatch</code>.
+     */
+    BATCH,
+
+    /**
+     * Many rows are rendered into a single <code>insert into t (cols) values (...), (...), ...</code> statement.  Only
+     * usable on databases that support multi-row VALUES lists, such as HSQLDB and PostgreSQL.
+     */
+    MULTI_ROW_VALUES,
+
+    /**
+     * The dialect's native bulk load path, such as PostgreSQL COPY or Oracle direct-path inserts.  Dialects without
+     * one use {@link #BATCH}.
+     */
+    BULK_LOAD
+}
@@ -1,27 +1,118 @@
 package org.dis;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.util.DigestUtils;
 
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collections;
 import java.util.List;
 
 public class OracleDatabaseTableDao extends AbstractDatabaseTableDao {
 
+    private static final Logger logger = LoggerFactory.getLogger(OracleDatabaseTableDao.class);
+
     private static final String DATABASE_TABLE_SQL = "select owner, table_name, iot_type from all_tables where table_name = :tableName and owner = :owner";
 
     private static final String CHILD_TABLE_REFERENCES_SQL = "select r.owner, r.table_name, r.constraint_name from all_constraints t join all_constraints r on t.constraint_name = r.r_constraint_name where t.table_name = :tableName and r.owner = :owner";
 
-    private static final String TABLE_TRIGGERS_SQL = "select trigger_name, table_owner from all_triggers where table_name = :tableName and owner = :owner";
+    private static final String TABLE_TRIGGERS_SQL = "select trigger_name, table_owner from all_triggers where table_name = :tableName and owner = :owner and trigger_name not like 'DIS\\_%' escape '\\'";
+
+    private static final String SCHEMA_TABLES_SQL = "select owner, table_name, iot_type from all_tables where owner = :owner";
+
+    private static final String SCHEMA_REFERENCES_SQL = "select t.owner as parent_owner, t.table_name as parent_table_name, r.owner, r.table_name, r.constraint_name from all_constraints t join all_constraints r on t.owner = r.r_owner and t.constraint_name = r.r_constraint_name where r.constraint_type = 'R' and t.owner = :owner";
+
+    private static final String SCHEMA_TRIGGERS_SQL = "select table_name, trigger_name, table_owner from all_triggers where owner = :owner and table_name is not null and trigger_name not like 'DIS\\_%' escape '\\'";
+
+    private static final String SCHEMA_FINGERPRINT_SQL = "select to_char(max(last_ddl_time), 'YYYYMMDDHH24MISS') || ':' || count(*) from all_objects where owner = :owner and object_name not like 'DIS\\_%' escape '\\'";
+
+    private static final String MODIFICATION_TRIGGER_EXISTS_SQL = "select count(*) from user_triggers where trigger_name = :triggerName";
+
+    private static final String DIRECT_PATH_INSERT_SQL = "insert /*+ APPEND_VALUES */ into {0} ({1}) values ({2})";
+
+    private static final String MODIFICATION_TRIGGER_SQL =
+            "create or replace trigger {0} after insert or update or delete on {1}" +
+            " begin update dis_table_modifications set modifications = modifications + 1 where table_name = ''{2}''; end;";
+
+    private static final String MODIFICATION_TRIGGER_PREFIX = "DIS_MOD_";
+
+    // Oracle identifiers are at most 30 characters long
+    private static final int MAX_IDENTIFIER_LENGTH = 30;
+
+    public static final int DEFAULT_DIRECT_PATH_INSERT_THRESHOLD = 5000;
 
     private String defaultSchema;
 
+    private int directPathInsertThreshold = DEFAULT_DIRECT_PATH_INSERT_THRESHOLD;
+
     public OracleDatabaseTableDao(String defaultSchema) {
         this.defaultSchema = defaultSchema == null ? null : defaultSchema.toUpperCase();
     }
 
+    /**
+     * @param directPathInsertThreshold the minimum number of rows for a table before they are inserted with a
+     *                                  direct-path insert, zero or less disables direct-path inserts.
+     */
+    public void setDirectPathInsertThreshold(int directPathInsertThreshold) {
+        this.directPathInsertThreshold = directPathInsertThreshold;
+    }
+
+    /**
+     * <p>
+     * The Oracle driver sends a JDBC batch as a single array-bound execute, so each table's rows are sent in arrays of
+     * {@link #getBatchSize()} rows.  When the table's triggers have been disabled via {@link #disableTriggers} and it
+     * has at least <code>directPathInsertThreshold</code> rows, the rows are instead sent as one array with the
+     * <code>APPEND_VALUES</code> hint, which loads them above the high water mark and generates minimal redo.
+     * </p>
+     * <p>
+     * A direct-path insert leaves the table unreadable and unmodifiable in the same transaction until it is
+     * committed (ORA-12838), which is why the whole run is sent in a single execute and committed straight away.  So
+     * a direct-path insert is only used within a {@link SeedingSession} that owns its connection.  Within a
+     * connection bound by someone else, such as a Spring managed transaction or a {@link TestTransaction}, which must
+     * not be committed, the rows are inserted conventionally.
+     * </p>
+     */
+    @Override
+    protected void bulkInsert(final DatabaseTable table, final List<String> columns, final List<DataSet.DataSetRow> rows) {
+        if (directPathInsertThreshold > 0 && rows.size() >= directPathInsertThreshold && areTriggersDisabled(table)
+                && SeedingSession.isOwnerBound(getJdbcTemplate().getDataSource())) {
+            logger.debug("Direct-path inserting [{}] rows into table [{}]", rows.size(), table.qualifiedName());
+            batchInsert(insertSql(DIRECT_PATH_INSERT_SQL, table, columns), insertPlan(table, columns), rows, rows.size());
+            getJdbcTemplate().execute(new ConnectionCallback<Object>() {
+                public Object doInConnection(final Connection connection) throws SQLException {
+                    if (!connection.getAutoCommit()) {
+                        connection.commit();
+                    }
+                    return null;
+                }
+            });
+        } else {
+            super.bulkInsert(table, columns, rows);
+        }
+    }
+
+    @Override
+    protected String columnSchemaPattern(final DatabaseTable table) {
+        return table.getOwner() == null ? defaultSchema : table.getOwner();
+    }
+
+    /**
+     * <p>
+     * An Oracle <code>DATE</code> holds a time of day as well, so it is bound as a timestamp.
+     * </p>
+     */
+    @Override
+    protected int columnType(final int dataType, final String typeName) {
+        return "DATE".equals(typeName) ? Types.TIMESTAMP : dataType;
+    }
+
     public DatabaseTable loadDatabaseTable(DatabaseTable table) {
         String owner = table.getOwner() == null ? defaultSchema : table.getOwner();
         final SqlParameterSource in = new MapSqlParameterSource()
@@ -36,6 +127,34 @@ public class OracleDatabaseTableDao extends AbstractDatabaseTableDao {
         return getSimpleJdbcTemplate().query(CHILD_TABLE_REFERENCES_SQL, new DatabaseReferentialConstraintMapper(), in);
     }
 
+    /**
+     * <p>
+     * A <code>truncate</code> is DDL in Oracle and does not fire the trigger.  A trigger installed by an earlier run
+     * is left as it is, as replacing it would change the DDL time the {@link #getSchemaFingerprint() fingerprint}
+     * is based on.
+     * </p>
+     */
+    @Override
+    protected List<String> modificationTrackingSql(final DatabaseTable table) {
+        final String tableName = table.getTableName().toUpperCase();
+        final String triggerName = modificationTriggerName(table);
+        final int triggers = getSimpleJdbcTemplate().queryForInt(MODIFICATION_TRIGGER_EXISTS_SQL,
+                new MapSqlParameterSource().addValue("triggerName", triggerName));
+        if (triggers > 0) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(sql(MODIFICATION_TRIGGER_SQL, triggerName, table.qualifiedName(), tableName));
+    }
+
+    /**
+     * @return a trigger name unique to the owner and name of the table, within Oracle's identifier length.
+     */
+    String modificationTriggerName(final DatabaseTable table) {
+        final String owner = table.getOwner() == null ? defaultSchema : table.getOwner();
+        final String hash = DigestUtils.md5DigestAsHex((owner + "." + table.getTableName()).toUpperCase().getBytes());
+        return (MODIFICATION_TRIGGER_PREFIX + hash).substring(0, MAX_IDENTIFIER_LENGTH).toUpperCase();
+    }
+
     public List<DatabaseTrigger> getTriggersForTable(DatabaseTable table) {
         String owner = table.getOwner() == null ? defaultSchema : table.getOwner();
         final SqlParameterSource in =
@@ -43,6 +162,59 @@ public class OracleDatabaseTableDao extends AbstractDatabaseTableDao {
         return getSimpleJdbcTemplate().query(TABLE_TRIGGERS_SQL, new DatabaseTriggerRowMapper(table), in);
     }
 
+    @Override
+    protected List<DatabaseTable> loadSchemaTables(final DatabaseTable table) {
+        return getSimpleJdbcTemplate().query(SCHEMA_TABLES_SQL, new DatabaseTableRowMapper(), schemaParameters(table));
+    }
+
+    @Override
+    protected List<DatabaseReferentialConstraint> loadSchemaReferentialConstraints(final DatabaseTable table) {
+        return getSimpleJdbcTemplate().query(SCHEMA_REFERENCES_SQL, new SchemaReferentialConstraintMapper(),
+                schemaParameters(table));
+    }
+
+    @Override
+    protected List<DatabaseTrigger> loadSchemaTriggers(final DatabaseTable table) {
+        return getSimpleJdbcTemplate().query(SCHEMA_TRIGGERS_SQL, new SchemaTriggerRowMapper(), schemaParameters(table));
+    }
+
+    /**
+     * @return the time of the last DDL on any object in the schema, and the number of objects, so that drops are
+     * noticed too.  The <code>DIS_</code> objects installed to track modifications are left out.
+     */
+    public String getSchemaFingerprint() {
+        return getSimpleJdbcTemplate().queryForObject(SCHEMA_FINGERPRINT_SQL, String.class,
+                new MapSqlParameterSource().addValue("owner", defaultSchema));
+    }
+
+    private SqlParameterSource schemaParameters(final DatabaseTable table) {
+        return new MapSqlParameterSource().addValue("owner", table.getOwner() == null ? defaultSchema : table.getOwner());
+    }
+
+    private static final class SchemaReferentialConstraintMapper implements RowMapper<DatabaseReferentialConstraint> {
+
+        private final DatabaseReferentialConstraintMapper childMapper = new DatabaseReferentialConstraintMapper();
+
+        public DatabaseReferentialConstraint mapRow(ResultSet rs, int rowNum)
+                throws SQLException {
+            final DatabaseReferentialConstraint constraint = childMapper.mapRow(rs, rowNum);
+            constraint.setParentTable(new DatabaseTable(rs.getString("parent_owner"), rs.getString("parent_table_name")));
+            return constraint;
+        }
+    }
+
+    private static final class SchemaTriggerRowMapper implements RowMapper<DatabaseTrigger> {
+
+        public DatabaseTrigger mapRow(ResultSet rs, int rowNum) throws SQLException {
+            final String owner = rs.getString("table_owner");
+            final DatabaseTrigger trigger = new DatabaseTrigger();
+            trigger.setDatabaseTable(new DatabaseTable(owner, rs.getString("table_name")));
+            trigger.setOwner(owner);
+            trigger.setTriggerName(rs.getString("trigger_name"));
+            return trigger;
+        }
+    }
+
     private static final class DatabaseTableRowMapper implements RowMapper<DatabaseTable> {
         public DatabaseTable mapRow(ResultSet rs, int rowNum)
                 throws SQLException {
@@ -0,0 +1,197 @@
+package org.dis;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.dis.AbstractDatabaseTableDao.sql;
+
+/**
+ * <p>
+ * Streams rows into a PostgreSQL table with <code>COPY ... FROM STDIN</code> in text format.  Rows are encoded one at
+ * a time into a fixed size buffer that is handed to the driver's copy API whenever it fills, so the table's rows are
+ * never materialised as one large string.
+ * </p>
+ * <p>
+ * This class is kept apart from {@link PostgresDatabaseTableDao} so that the PostgreSQL driver is only required
+ * on the classpath when a copy is actually performed.
+ * </p>
+ */
+final class PostgresCopyLoader {
+
+    private static final String COPY_SQL = "copy {0} ({1}) from stdin";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private PostgresCopyLoader() {
+    }
+
+    /**
+     * @return true when every value of the given rows can be rendered in the COPY text format.
+     */
+    static boolean canEncode(final List<String> columns, final List<DataSet.DataSetRow> rows) {
+        for (final DataSet.DataSetRow row : rows) {
+            for (final String column : columns) {
+                if (!canEncode(row.getValueFor(column))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the PostgreSQL connection behind the given connection, or null if it is not a PostgreSQL connection.
+     */
+    static PGConnection pgConnection(Connection connection) throws SQLException {
+        if (connection instanceof ConnectionProxy) {
+            connection = ((ConnectionProxy) connection).getTargetConnection();
+        }
+        if (connection instanceof PGConnection) {
+            return (PGConnection) connection;
+        }
+        if (connection.isWrapperFor(PGConnection.class)) {
+            return connection.unwrap(PGConnection.class);
+        }
+        return null;
+    }
+
+    static long copy(final PGConnection connection, final DatabaseTable table, final List<String> columns,
+                     final List<DataSet.DataSetRow> rows) throws SQLException {
+        return copy(connection.getCopyAPI().copyIn(copySql(table, columns)), columns, rows);
+    }
+
+    static long copy(final CopyIn copyIn, final List<String> columns, final List<DataSet.DataSetRow> rows)
+            throws SQLException {
+        try {
+            final RowEncoder encoder = new RowEncoder(copyIn);
+            for (final DataSet.DataSetRow row : rows) {
+                encoder.encode(columns, row);
+            }
+            encoder.flush();
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    static String copySql(final DatabaseTable table, final List<String> columns) {
+        final StringBuilder columnList = new StringBuilder();
+        for (final String column : columns) {
+            if (columnList.length() > 0) {
+                columnList.append(", ");
+            }
+            columnList.append(column);
+        }
+        return sql(COPY_SQL, table.qualifiedName(), columnList.toString());
+    }
+
+    private static boolean canEncode(final Object value) {
+        return value == null
+                || value instanceof String
+                || value instanceof Character
+                || value instanceof Boolean
+                || value instanceof Integer
+                || value instanceof Long
+                || value instanceof Short
+                || value instanceof Byte
+                || value instanceof BigDecimal
+                || value instanceof BigInteger
+                || value instanceof Double
+                || value instanceof Float
+                || value instanceof java.util.Date;
+    }
+
+    /**
+     * Encodes rows in the COPY text format into a reusable buffer, flushing to the server as it fills.
+     */
+    private static final class RowEncoder {
+
+        private final CopyIn copyIn;
+
+        private final CharsetEncoder charsetEncoder = UTF8.newEncoder();
+
+        private final StringBuilder line = new StringBuilder(256);
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        RowEncoder(final CopyIn copyIn) {
+            this.copyIn = copyIn;
+        }
+
+        void encode(final List<String> columns, final DataSet.DataSetRow row) throws SQLException {
+            line.setLength(0);
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    line.append('\t');
+                }
+                appendValue(row.getValueFor(columns.get(i)));
+            }
+            line.append('\n');
+
+            final CharBuffer chars = CharBuffer.wrap(line);
+            CoderResult result = charsetEncoder.encode(chars, buffer, true);
+            while (result.isOverflow()) {
+                flush();
+                result = charsetEncoder.encode(chars, buffer, true);
+            }
+            charsetEncoder.reset();
+        }
+
+        void flush() throws SQLException {
+            if (buffer.position() > 0) {
+                copyIn.writeToCopy(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+        }
+
+        private void appendValue(final Object value) {
+            if (value == null) {
+                line.append("\\N");
+            } else if (value instanceof java.util.Date && !(value instanceof Timestamp)
+                    && !(value instanceof java.sql.Date) && !(value instanceof java.sql.Time)) {
+                line.append(new Timestamp(((java.util.Date) value).getTime()));
+            } else {
+                appendEscaped(value.toString());
+            }
+        }
+
+        private void appendEscaped(final String value) {
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                switch (c) {
+                    case '\\':
+                        line.append("\\\\");
+                        break;
+                    case '\t':
+                        line.append("\\t");
+                        break;
+                    case '\n':
+                        line.append("\\n");
+                        break;
+                    case '\r':
+                        line.append("\\r");
+                        break;
+                    default:
+                        line.append(c);
+                }
+            }
+        }
+    }
+}
@@ -1,17 +1,24 @@
 package org.dis;
 
 import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class PostgresDatabaseTableDao extends AbstractDatabaseTableDao {
 
+    private static final Logger logger = LoggerFactory.getLogger(PostgresDatabaseTableDao.class);
+
     private static final String DATABASE_TABLE_SQL = "select tableowner as owner, tablename as table_name from pg_tables where tablename = :tableName and tableowner = :owner";
 
     private static final String CHILD_TABLE_REFERENCES_SQL =
@@ -19,7 +26,38 @@ public class PostgresDatabaseTableDao extends AbstractDatabaseTableDao {
 
     private static final String TABLE_TRIGGERS_SQL =
             "select pt.tgname as trigger_name, p.rolname as table_owner from" +
-            " pg_trigger pt, pg_class t, pg_roles p where t.relname = :tableName and p.rolname = :owner and pt.tgrelid = t.relowner";
+            " pg_trigger pt, pg_class t, pg_roles p where t.relname = :tableName and p.rolname = :owner and pt.tgrelid = t.relowner and pt.tgname <> 'dis_modifications'";
+
+    private static final String SCHEMA_TABLES_SQL = "select tableowner as owner, tablename as table_name from pg_tables where tableowner = :owner";
+
+    private static final String SCHEMA_REFERENCES_SQL =
+    "select con.conname as constraint_name, parent_tab.relname as parent_table_name, parent_owner.rolname as parent_owner, child_tab.relname as table_name, owner.rolname as owner from pg_constraint con join pg_class parent_tab on con.confrelid = parent_tab.oid join pg_roles parent_owner on parent_tab.relowner = parent_owner.oid join pg_class child_tab on con.conrelid = child_tab.oid join pg_roles owner on child_tab.relowner = owner.oid where con.contype = 'f' and parent_owner.rolname = :owner";
+
+    private static final String SCHEMA_TRIGGERS_SQL =
+            "select t.relname as table_name, pt.tgname as trigger_name, p.rolname as table_owner from" +
+            " pg_trigger pt join pg_class t on pt.tgrelid = t.oid join pg_roles p on t.relowner = p.oid where p.rolname = :owner and not pt.tgisinternal and pt.tgname <> 'dis_modifications'";
+
+    private static final String SCHEMA_FINGERPRINT_SQL =
+            "select md5(coalesce(string_agg(entry, ',' order by entry), '')) from (" +
+            " select c.relname || '.' || a.attname || ':' || a.atttypid as entry from pg_class c join pg_roles r on c.relowner = r.oid join pg_attribute a on a.attrelid = c.oid where r.rolname = :owner and c.relkind = 'r' and a.attnum > 0 and not a.attisdropped" +
+            " union all select con.conname || ':' || con.conrelid || ':' || con.confrelid from pg_constraint con join pg_class c on con.conrelid = c.oid join pg_roles r on c.relowner = r.oid where r.rolname = :owner and con.contype = 'f'" +
+            " union all select t.tgname || ':' || t.tgrelid from pg_trigger t join pg_class c on t.tgrelid = c.oid join pg_roles r on c.relowner = r.oid where r.rolname = :owner and not t.tgisinternal and t.tgname <> 'dis_modifications'" +
+            ") catalog";
+
+    private static final String MODIFICATION_TRIGGER_NAME = "dis_modifications";
+
+    private static final String MODIFICATION_FUNCTION_SQL =
+            "create or replace function dis_count_modification() returns trigger as" +
+            " 'begin update dis_table_modifications set modifications = modifications + 1 where table_name = upper(TG_TABLE_NAME); return null; end;'" +
+            " language plpgsql";
+
+    private static final String DROP_MODIFICATION_TRIGGER_SQL = "drop trigger if exists {0} on {1}";
+
+    private static final String CREATE_MODIFICATION_TRIGGER_SQL =
+            "create trigger {0} after insert or update or delete or truncate on {1}" +
+            " for each statement execute procedure dis_count_modification()";
+
+    private static final String TRUNCATE_TABLES_SQL = "truncate table {0} restart identity cascade";
 
     private String defaultSchema;
 
@@ -35,6 +73,41 @@ public class PostgresDatabaseTableDao extends AbstractDatabaseTableDao {
         return getSimpleJdbcTemplate().queryForObject(DATABASE_TABLE_SQL, new DatabaseTableRowMapper(), in);
     }
 
+    @Override
+    public boolean isDdlTransactional() {
+        return true;
+    }
+
+    /**
+     * <p>
+     * Truncates all of the tables in a single statement, so that no constraint needs to be disabled.
+     * </p>
+     */
+    @Override
+    public void truncateTables(final List<DatabaseTable> orderedTables) {
+        if (orderedTables.isEmpty()) {
+            return;
+        }
+        final List<String> tableNames = new ArrayList<String>(orderedTables.size());
+        for (final DatabaseTable table : orderedTables) {
+            tableNames.add(table.qualifiedName());
+        }
+        getJdbcTemplate().execute(sql(TRUNCATE_TABLES_SQL, StringUtils.join(tableNames, ", ")));
+    }
+
+    /**
+     * <p>
+     * Every table shares one trigger function, and its triggers are left out of the triggers loaded for the table,
+     * so that seeding does not disable them.
+     * </p>
+     */
+    @Override
+    protected List<String> modificationTrackingSql(final DatabaseTable table) {
+        return Arrays.asList(MODIFICATION_FUNCTION_SQL,
+                sql(DROP_MODIFICATION_TRIGGER_SQL, MODIFICATION_TRIGGER_NAME, table.qualifiedName()),
+                sql(CREATE_MODIFICATION_TRIGGER_SQL, MODIFICATION_TRIGGER_NAME, table.qualifiedName()));
+    }
+
     public List<DatabaseReferentialConstraint> loadChildTableReferences(final DatabaseTable table) {
         String tableName = table.getTableName();
         String lowerCaseTableName = tableName.toLowerCase();
@@ -53,9 +126,69 @@ public class PostgresDatabaseTableDao extends AbstractDatabaseTableDao {
         return getSimpleJdbcTemplate().query(TABLE_TRIGGERS_SQL, new DatabaseTriggerRowMapper(table), in);
     }
 
-    protected SimpleJdbcInsert createSimpleJdbcInsert(DatabaseTable table) {
-        return new SimpleJdbcInsert(getJdbcTemplate())
-                .withTableName(table.getTableName().toLowerCase());
+    @Override
+    protected List<DatabaseTable> loadSchemaTables(final DatabaseTable table) {
+        return getSimpleJdbcTemplate().query(SCHEMA_TABLES_SQL, new DatabaseTableRowMapper(), schemaParameters(table));
+    }
+
+    @Override
+    protected List<DatabaseReferentialConstraint> loadSchemaReferentialConstraints(final DatabaseTable table) {
+        return getSimpleJdbcTemplate().query(SCHEMA_REFERENCES_SQL, new SchemaReferentialConstraintMapper(),
+                schemaParameters(table));
+    }
+
+    @Override
+    protected List<DatabaseTrigger> loadSchemaTriggers(final DatabaseTable table) {
+        return getSimpleJdbcTemplate().query(SCHEMA_TRIGGERS_SQL, new SchemaTriggerRowMapper(), schemaParameters(table));
+    }
+
+    /**
+     * @return a hash of the columns, foreign keys and triggers of the tables owned by the default schema's role.
+     */
+    public String getSchemaFingerprint() {
+        return getSimpleJdbcTemplate().queryForObject(SCHEMA_FINGERPRINT_SQL, String.class,
+                new MapSqlParameterSource().addValue("owner", defaultSchema));
+    }
+
+    private SqlParameterSource schemaParameters(final DatabaseTable table) {
+        final String owner = table.getOwner() == null ? defaultSchema : table.getOwner().toLowerCase();
+        return new MapSqlParameterSource().addValue("owner", owner);
+    }
+
+    @Override
+    protected String columnTableNamePattern(final DatabaseTable table) {
+        return table.getTableName().toLowerCase();
+    }
+
+    /**
+     * <p>
+     * Streams the rows through <code>COPY ... FROM STDIN</code>, which is several times faster than batched inserts.
+     * Falls back to batched inserts when a value cannot be encoded in the COPY text format, or when the underlying
+     * connection does not expose the PostgreSQL copy API.
+     * </p>
+     */
+    @Override
+    protected void bulkInsert(final DatabaseTable table, final List<String> columns, final List<DataSet.DataSetRow> rows) {
+        if (!PostgresCopyLoader.canEncode(columns, rows)) {
+            logger.debug("Rows for table [{}] cannot be encoded for COPY, using batched inserts.", table.qualifiedName());
+            super.bulkInsert(table, columns, rows);
+            return;
+        }
+        final Boolean copied = getJdbcTemplate().execute(new ConnectionCallback<Boolean>() {
+            public Boolean doInConnection(final Connection connection) throws SQLException {
+                final org.postgresql.PGConnection pgConnection = PostgresCopyLoader.pgConnection(connection);
+                if (pgConnection == null) {
+                    return false;
+                }
+                final long copiedRows = PostgresCopyLoader.copy(pgConnection, table, columns, rows);
+                logger.debug("Copied [{}] rows into table [{}]", copiedRows, table.qualifiedName());
+                return true;
+            }
+        });
+        if (!copied) {
+            logger.debug("Connection does not expose the PostgreSQL copy API, using batched inserts.");
+            super.bulkInsert(table, columns, rows);
+        }
     }
 
 
@@ -84,6 +217,28 @@ public class PostgresDatabaseTableDao extends AbstractDatabaseTableDao {
         }
     }
 
+    private static final class SchemaReferentialConstraintMapper implements RowMapper<DatabaseReferentialConstraint> {
+
+        private final DatabaseReferentialConstraintMapper childMapper = new DatabaseReferentialConstraintMapper();
+
+        public DatabaseReferentialConstraint mapRow(ResultSet rs, int rowNum) throws SQLException {
+            final DatabaseReferentialConstraint constraint = childMapper.mapRow(rs, rowNum);
+            constraint.setParentTable(new DatabaseTable(rs.getString("parent_owner"), rs.getString("parent_table_name")));
+            return constraint;
+        }
+    }
+
+    private static final class SchemaTriggerRowMapper implements RowMapper<DatabaseTrigger> {
+
+        public DatabaseTrigger mapRow(ResultSet rs, int rowNum) throws SQLException {
+            final DatabaseTrigger trigger = new DatabaseTrigger();
+            trigger.setDatabaseTable(new DatabaseTable(rs.getString("table_owner"), rs.getString("table_name")));
+            trigger.setOwner(StringUtils.upperCase(rs.getString("table_owner")));
+            trigger.setTriggerName(StringUtils.upperCase(rs.getString("trigger_name")));
+            return trigger;
+        }
+    }
+
     private static final class DatabaseTriggerRowMapper implements RowMapper<DatabaseTrigger> {
 
         private final DatabaseTable databaseTable;
@@ -0,0 +1,31 @@
+package org.dis;
+
+/**
+ * <p>
+ * How the tables of a dataset, and every table referencing them, are reset before the dataset is seeded.
+ * </p>
+ */
+public enum ResetStrategy {
+
+    /**
+     * Deletes the rows of each table, child before parent.
+     */
+    DELETE,
+
+    /**
+     * Truncates the tables.  On PostgreSQL they are all truncated by a single
+     * <code>truncate table ... restart identity cascade</code> statement, which leaves no dead tuples behind and also
+     * resets their sequences.  HSQLDB cannot truncate a table referenced by a foreign key, so it deletes the rows of
+     * those tables instead.  Other databases truncate one table at a time, disabling the constraints referencing it
+     * for the duration.
+     */
+    TRUNCATE,
+
+    /**
+     * Compares the current rows of each table with the dataset by primary key, and only deletes, updates and inserts
+     * the rows that differ, which suits consecutive tests seeding almost the same dataset.  Tables without a primary
+     * key, and every table referencing them, are emptied and seeded in full.  Every column is compared, and a column
+     * the dataset does not set is updated to null, as column defaults are not known.
+     */
+    DELTA
+}
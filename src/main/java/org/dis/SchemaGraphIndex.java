@@ -0,0 +1,358 @@
+package org.dis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * An immutable index of a <code>DatabaseTable</code> graph, built once so that ordering tables no longer walks the
+ * graph.  The index covers the given tables and their child referential constraint closure, which is all that
+ * ordering and emptying them needs, so that building it never resolves the parents of a lazily loaded table.  Only
+ * the parent constraints already known between indexed tables are indexed.  Each table is given a dense integer id,
+ * its references are held as adjacency arrays of ids, and it is assigned:
+ * <ul>
+ *  <li>The id of its strongly connected component, found with Tarjan's algorithm.  Tables in a component of more
+ *  than one table form a foreign key cycle, which no ordering of the tables can satisfy.</li>
+ *  <li>A topological rank: the length of the longest chain of parents above its component.  A parent always has a
+ *  lower rank than its children, and the tables of a component share the same rank.</li>
+ * </ul>
+ * Ordering tables parent before child, or child before parent, is then a sort by rank.
+ * </p>
+ */
+final class SchemaGraphIndex {
+
+    private final DatabaseTable[] tables;
+
+    private final Map<String, Integer> ids;
+
+    private final int[][] children;
+
+    private final int[][] parents;
+
+    private final int[] components;
+
+    private final int[] componentSizes;
+
+    private final int[] ranks;
+
+    private final Comparator<Integer> parentsFirst = new Comparator<Integer>() {
+        public int compare(final Integer first, final Integer second) {
+            return ranks[first] != ranks[second] ? ranks[first] - ranks[second] : first - second;
+        }
+    };
+
+    private final Comparator<Integer> childrenFirst = new Comparator<Integer>() {
+        public int compare(final Integer first, final Integer second) {
+            return ranks[first] != ranks[second] ? ranks[second] - ranks[first] : first - second;
+        }
+    };
+
+    private SchemaGraphIndex(final List<DatabaseTable> databaseTables, final Map<String, Integer> ids) {
+        this.tables = databaseTables.toArray(new DatabaseTable[databaseTables.size()]);
+        this.ids = ids;
+        this.children = new int[tables.length][];
+        this.parents = new int[tables.length][];
+        for (int i = 0; i < tables.length; i++) {
+            final List<DatabaseReferentialConstraint> childConstraints = tables[i].getChildConstraints();
+            children[i] = new int[childConstraints.size()];
+            for (int j = 0; j < children[i].length; j++) {
+                children[i][j] = ids.get(childConstraints.get(j).getChildTable().qualifiedName());
+            }
+            final List<Integer> parentIds = new ArrayList<Integer>();
+            for (final DatabaseReferentialConstraint parentConstraint : tables[i].getKnownParentConstraints()) {
+                final Integer parentId = ids.get(parentConstraint.getParentTable().qualifiedName());
+                if (parentId != null) {
+                    parentIds.add(parentId);
+                }
+            }
+            parents[i] = new int[parentIds.size()];
+            for (int j = 0; j < parents[i].length; j++) {
+                parents[i][j] = parentIds.get(j);
+            }
+        }
+        this.components = new int[tables.length];
+        final int componentCount = findComponents();
+        this.componentSizes = new int[componentCount];
+        for (final int component : components) {
+            componentSizes[component]++;
+        }
+        this.ranks = rankComponents(componentCount);
+    }
+
+    /**
+     * @param databaseTables the tables to index, with their child referential constraint closure
+     * @return the index
+     */
+    static SchemaGraphIndex build(final Collection<DatabaseTable> databaseTables) {
+        final Map<String, Integer> ids = new HashMap<String, Integer>();
+        final List<DatabaseTable> tables = new ArrayList<DatabaseTable>();
+        for (final DatabaseTable databaseTable : databaseTables) {
+            addTable(databaseTable, ids, tables);
+        }
+        for (int i = 0; i < tables.size(); i++) {
+            for (final DatabaseReferentialConstraint childConstraint : tables.get(i).getChildConstraints()) {
+                addTable(childConstraint.getChildTable(), ids, tables);
+            }
+        }
+        return new SchemaGraphIndex(tables, ids);
+    }
+
+    private static void addTable(final DatabaseTable table, final Map<String, Integer> ids,
+                                 final List<DatabaseTable> tables) {
+        if (!ids.containsKey(table.qualifiedName())) {
+            ids.put(table.qualifiedName(), tables.size());
+            tables.add(table);
+        }
+    }
+
+    /**
+     * @return true when every one of the given tables, as the same instance, is in the index.
+     */
+    boolean containsAll(final Collection<DatabaseTable> databaseTables) {
+        for (final DatabaseTable databaseTable : databaseTables) {
+            final Integer id = ids.get(databaseTable.qualifiedName());
+            if (id == null || tables[id] != databaseTable) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    List<DatabaseTable> getTables() {
+        return Collections.unmodifiableList(Arrays.asList(tables));
+    }
+
+    int size() {
+        return tables.length;
+    }
+
+    int getId(final DatabaseTable databaseTable) {
+        final Integer id = ids.get(databaseTable.qualifiedName());
+        if (id == null) {
+            throw new DatabaseTestException(
+                    "Table [" + databaseTable.qualifiedName() + "] is not in the schema graph index.");
+        }
+        return id;
+    }
+
+    int getRank(final DatabaseTable databaseTable) {
+        return ranks[getId(databaseTable)];
+    }
+
+    int getComponent(final DatabaseTable databaseTable) {
+        return components[getId(databaseTable)];
+    }
+
+    /**
+     * @return true when the table is part of a foreign key cycle through other tables.
+     */
+    boolean isCyclic(final DatabaseTable databaseTable) {
+        return componentSizes[getComponent(databaseTable)] > 1;
+    }
+
+    /**
+     * @return the ids of the table and every table in its child referential constraint closure.
+     */
+    BitSet childClosure(final DatabaseTable databaseTable) {
+        return closure(Collections.singleton(databaseTable), false);
+    }
+
+    /**
+     * @return the given tables ordered parent before child, otherwise keeping the order in which they were given.
+     */
+    List<DatabaseTable> parentsFirst(final Collection<DatabaseTable> databaseTables) {
+        final List<Integer> tableIds = new ArrayList<Integer>(databaseTables.size());
+        for (final DatabaseTable databaseTable : databaseTables) {
+            tableIds.add(getId(databaseTable));
+        }
+        // a stable sort on rank alone, so that tables of the same rank keep their order
+        Collections.sort(tableIds, new Comparator<Integer>() {
+            public int compare(final Integer first, final Integer second) {
+                return ranks[first] - ranks[second];
+            }
+        });
+        return tablesFor(tableIds);
+    }
+
+    /**
+     * @return the given tables and their complete child referential constraint closure, each table once, ordered
+     * child before parent.
+     */
+    List<DatabaseTable> deletePlan(final Collection<DatabaseTable> databaseTables) {
+        return sorted(closure(databaseTables, false), childrenFirst);
+    }
+
+    /**
+     * @return the given tables and every indexed table connected to them through child or parent referential
+     * constraints, ordered parent before child.  Complete only when the index was built over every connected table.
+     */
+    List<DatabaseTable> connectedTables(final Collection<DatabaseTable> databaseTables) {
+        return sorted(closure(databaseTables, true), parentsFirst);
+    }
+
+    /**
+     * @return the child referential constraints of the given tables that are part of a foreign key cycle, i.e. whose
+     * parent and child tables are in the same strongly connected component of more than one table.  Self-referencing
+     * constraints are not included, as a single statement deletes or inserts every row of their table.
+     */
+    List<DatabaseReferentialConstraint> cyclicConstraints(final Collection<DatabaseTable> databaseTables) {
+        final List<DatabaseReferentialConstraint> cyclicConstraints = new ArrayList<DatabaseReferentialConstraint>();
+        for (final DatabaseTable databaseTable : databaseTables) {
+            final int id = getId(databaseTable);
+            if (componentSizes[components[id]] < 2) {
+                continue;
+            }
+            final List<DatabaseReferentialConstraint> childConstraints = tables[id].getChildConstraints();
+            for (int j = 0; j < children[id].length; j++) {
+                if (children[id][j] != id && components[children[id][j]] == components[id]) {
+                    cyclicConstraints.add(childConstraints.get(j));
+                }
+            }
+        }
+        return cyclicConstraints;
+    }
+
+    private BitSet closure(final Collection<DatabaseTable> databaseTables, final boolean followParents) {
+        final BitSet closure = new BitSet(tables.length);
+        final int[] pending = new int[tables.length];
+        int pendingCount = 0;
+        for (final DatabaseTable databaseTable : databaseTables) {
+            final int id = getId(databaseTable);
+            if (!closure.get(id)) {
+                closure.set(id);
+                pending[pendingCount++] = id;
+            }
+        }
+        while (pendingCount > 0) {
+            final int id = pending[--pendingCount];
+            for (final int child : children[id]) {
+                if (!closure.get(child)) {
+                    closure.set(child);
+                    pending[pendingCount++] = child;
+                }
+            }
+            if (followParents) {
+                for (final int parent : parents[id]) {
+                    if (!closure.get(parent)) {
+                        closure.set(parent);
+                        pending[pendingCount++] = parent;
+                    }
+                }
+            }
+        }
+        return closure;
+    }
+
+    private List<DatabaseTable> sorted(final BitSet tableIds, final Comparator<Integer> comparator) {
+        final List<Integer> sortedIds = new ArrayList<Integer>(tableIds.cardinality());
+        for (int id = tableIds.nextSetBit(0); id >= 0; id = tableIds.nextSetBit(id + 1)) {
+            sortedIds.add(id);
+        }
+        Collections.sort(sortedIds, comparator);
+        return tablesFor(sortedIds);
+    }
+
+    private List<DatabaseTable> tablesFor(final List<Integer> tableIds) {
+        final List<DatabaseTable> databaseTables = new ArrayList<DatabaseTable>(tableIds.size());
+        for (final Integer id : tableIds) {
+            databaseTables.add(tables[id]);
+        }
+        return databaseTables;
+    }
+
+    /**
+     * Tarjan's strongly connected components algorithm, without recursion so that deep foreign key chains cannot
+     * overflow the stack.  Components are numbered in reverse topological order: a child's component is never
+     * numbered higher than its parent's.
+     * @return the number of components
+     */
+    private int findComponents() {
+        final int count = tables.length;
+        final int[] order = new int[count];
+        Arrays.fill(order, -1);
+        final int[] lowLinks = new int[count];
+        final int[] nextEdges = new int[count];
+        final boolean[] onStack = new boolean[count];
+        final int[] stack = new int[count];
+        final int[] callStack = new int[count];
+        int stackSize = 0;
+        int visited = 0;
+        int componentCount = 0;
+        for (int root = 0; root < count; root++) {
+            if (order[root] != -1) {
+                continue;
+            }
+            int depth = 0;
+            callStack[0] = root;
+            order[root] = lowLinks[root] = visited++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while (depth >= 0) {
+                final int table = callStack[depth];
+                if (nextEdges[table] < children[table].length) {
+                    final int child = children[table][nextEdges[table]++];
+                    if (order[child] == -1) {
+                        order[child] = lowLinks[child] = visited++;
+                        stack[stackSize++] = child;
+                        onStack[child] = true;
+                        callStack[++depth] = child;
+                    } else if (onStack[child]) {
+                        lowLinks[table] = Math.min(lowLinks[table], order[child]);
+                    }
+                } else {
+                    if (lowLinks[table] == order[table]) {
+                        int member;
+                        do {
+                            member = stack[--stackSize];
+                            onStack[member] = false;
+                            components[member] = componentCount;
+                        } while (member != table);
+                        componentCount++;
+                    }
+                    if (--depth >= 0) {
+                        final int parent = callStack[depth];
+                        lowLinks[parent] = Math.min(lowLinks[parent], lowLinks[table]);
+                    }
+                }
+            }
+        }
+        return componentCount;
+    }
+
+    /**
+     * Ranks the components in topological order, from the highest numbered component down, so that the rank of a
+     * component is final before any of its children are ranked.
+     */
+    private int[] rankComponents(final int componentCount) {
+        final List<List<Integer>> members = new ArrayList<List<Integer>>(componentCount);
+        for (int i = 0; i < componentCount; i++) {
+            members.add(new ArrayList<Integer>());
+        }
+        for (int id = 0; id < tables.length; id++) {
+            members.get(components[id]).add(id);
+        }
+        final int[] componentRanks = new int[componentCount];
+        for (int component = componentCount - 1; component >= 0; component--) {
+            for (final int id : members.get(component)) {
+                for (final int child : children[id]) {
+                    if (components[child] != component) {
+                        componentRanks[components[child]] =
+                                Math.max(componentRanks[components[child]], componentRanks[component] + 1);
+                    }
+                }
+            }
+        }
+        final int[] tableRanks = new int[tables.length];
+        for (int id = 0; id < tables.length; id++) {
+            tableRanks[id] = componentRanks[components[id]];
+        }
+        return tableRanks;
+    }
+}
@@ -0,0 +1,261 @@
+package org.dis;
+
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>
+ * A thread-safe cache of loaded <code>DatabaseTable</code> structures, by table name.  Caches are scoped per
+ * database and schema through {@link #forScope(String)}, so every Spring context in the JVM that points at the same
+ * schema reuses the same structures.
+ * </p>
+ * <p>
+ * Completed tables are read without locking.  Loads are single-flight: they run under one lock per cache, so a
+ * thread asking for a table that another thread is loading waits for that load and then shares its result.  While
+ * a load is running, each table is registered as an in-progress placeholder through {@link #loading(DatabaseTable)}
+ * before its references are followed, so a self-referencing or cyclic foreign key resolves to the placeholder rather
+ * than recursing without end.  The tables of a load are only published once the outermost load has completed, so
+ * other threads never see a partially linked graph.
+ * </p>
+ * <p>
+ * Lazily loaded tables resolve the rest of their structure through {@link #getStructureResolver()}, which belongs to
+ * the cache rather than to the service that loaded them.  It delegates to the most recently attached resolver of a
+ * live service, so a table outliving the context that loaded it never reaches back into that context.
+ * </p>
+ */
+public final class SchemaMetadataCache {
+
+    private static final ConcurrentMap<String, SchemaMetadataCache> scopes =
+            new ConcurrentHashMap<String, SchemaMetadataCache>();
+
+    private final ConcurrentMap<String, DatabaseTable> tables;
+
+    private final ReentrantLock loadLock;
+
+    // Tables registered by the load in progress, only accessed by the thread holding the load lock
+    private final Map<String, DatabaseTable> loading;
+
+    // The resolvers of the live services using this cache, in the order they were attached
+    private final List<DatabaseTable.StructureResolver> resolvers;
+
+    private final DatabaseTable.StructureResolver structureResolver;
+
+    public SchemaMetadataCache() {
+        tables = new ConcurrentHashMap<String, DatabaseTable>();
+        loadLock = new ReentrantLock();
+        loading = new HashMap<String, DatabaseTable>();
+        resolvers = new CopyOnWriteArrayList<DatabaseTable.StructureResolver>();
+        structureResolver = new ScopedStructureResolver();
+    }
+
+    /**
+     * @param scope identifies the database and schema, e.g. the data source url, user and schema
+     * @return the JVM-wide cache for the scope
+     */
+    public static SchemaMetadataCache forScope(final String scope) {
+        Assert.notNull(scope, "scope cannot be null.");
+        SchemaMetadataCache cache = scopes.get(scope);
+        if (cache == null) {
+            final SchemaMetadataCache created = new SchemaMetadataCache();
+            cache = scopes.putIfAbsent(scope, created);
+            if (cache == null) {
+                cache = created;
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * @return the completed table, or null when it has not been loaded.
+     */
+    public DatabaseTable get(final String tableName) {
+        return tables.get(tableName.toUpperCase());
+    }
+
+    /**
+     * <p>
+     * Returns the table, loading it through the loader when it has not been loaded yet.  When the calling thread is
+     * already loading the table, the in-progress placeholder is returned.
+     * </p>
+     * @param tableName the name of the table
+     * @param loader    loads the table, registering every table it loads through {@link #loading(DatabaseTable)}
+     * @return the table
+     */
+    public DatabaseTable get(final String tableName, final Loader loader) {
+        final String key = tableName.toUpperCase();
+        final DatabaseTable table = tables.get(key);
+        if (table != null) {
+            return table;
+        }
+        return resolve(new Loader() {
+            public DatabaseTable load() {
+                DatabaseTable loaded = lookup(key);
+                if (loaded == null) {
+                    loaded = loader.load();
+                    loading(loaded);
+                }
+                return loaded;
+            }
+        });
+    }
+
+    /**
+     * <p>
+     * Runs a load under the load lock, publishing the tables it registers once the outermost load completes.  Also
+     * used to lazily resolve the structure of a completed table, so that the resolution is single-flight and the
+     * tables it loads are published with it.
+     * </p>
+     */
+    DatabaseTable resolve(final Loader loader) {
+        loadLock.lock();
+        try {
+            final boolean outermost = loadLock.getHoldCount() == 1;
+            boolean completed = false;
+            try {
+                final DatabaseTable table = loader.load();
+                completed = true;
+                return table;
+            } finally {
+                if (outermost) {
+                    if (completed) {
+                        tables.putAll(loading);
+                    }
+                    loading.clear();
+                }
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * <p>
+     * Registers a table of the load in progress, before its references are followed.  Must only be called from a
+     * {@link Loader}.
+     * </p>
+     */
+    void loading(final DatabaseTable table) {
+        Assert.state(loadLock.isHeldByCurrentThread(), "Tables can only be registered while loading.");
+        loading.put(table.getTableName(), table);
+    }
+
+    /**
+     * @return the completed or in-progress table, only meaningful from a {@link Loader}.
+     */
+    DatabaseTable lookup(final String tableName) {
+        final String key = tableName.toUpperCase();
+        final DatabaseTable table = tables.get(key);
+        return table != null || !loadLock.isHeldByCurrentThread() ? table : loading.get(key);
+    }
+
+    /**
+     * @return true when the calling thread is running a load.
+     */
+    boolean isLoading() {
+        return loadLock.isHeldByCurrentThread();
+    }
+
+    /**
+     * @return a snapshot of the completed tables.
+     */
+    public Collection<DatabaseTable> getTables() {
+        return new ArrayList<DatabaseTable>(tables.values());
+    }
+
+    /**
+     * <p>
+     * Adds completed tables that were loaded elsewhere, e.g. from a {@link SchemaMetadataFile}.  Tables that are
+     * already cached are kept.
+     * </p>
+     */
+    public void preload(final Collection<DatabaseTable> databaseTables) {
+        loadLock.lock();
+        try {
+            for (final DatabaseTable table : databaseTables) {
+                tables.putIfAbsent(table.getTableName(), table);
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * @return the resolver to set on lazily loaded tables, delegating to an attached resolver.
+     */
+    DatabaseTable.StructureResolver getStructureResolver() {
+        return structureResolver;
+    }
+
+    /**
+     * <p>
+     * Attaches the resolver of a service using this cache, until it is detached through
+     * {@link #detach(DatabaseTable.StructureResolver)} when that service is destroyed.
+     * </p>
+     */
+    void attach(final DatabaseTable.StructureResolver resolver) {
+        resolvers.add(resolver);
+    }
+
+    void detach(final DatabaseTable.StructureResolver resolver) {
+        resolvers.remove(resolver);
+    }
+
+    public int size() {
+        return tables.size();
+    }
+
+    public void clear() {
+        loadLock.lock();
+        try {
+            tables.clear();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Resolves through the most recently attached resolver.
+     */
+    private final class ScopedStructureResolver implements DatabaseTable.StructureResolver {
+
+        public void resolveChildConstraints(final DatabaseTable table) {
+            attachedResolver(table).resolveChildConstraints(table);
+        }
+
+        public void resolveDatabaseTriggers(final DatabaseTable table) {
+            attachedResolver(table).resolveDatabaseTriggers(table);
+        }
+
+        public void resolveParentConstraints(final DatabaseTable table) {
+            attachedResolver(table).resolveParentConstraints(table);
+        }
+
+        private DatabaseTable.StructureResolver attachedResolver(final DatabaseTable table) {
+            DatabaseTable.StructureResolver attached = null;
+            for (final DatabaseTable.StructureResolver resolver : resolvers) {
+                attached = resolver;
+            }
+            if (attached == null) {
+                throw new DatabaseTestException("Failed to resolve the structure of table [" + table.getTableName()
+                        + "], no service using the schema metadata cache is still open.");
+            }
+            return attached;
+        }
+    }
+
+    /**
+     * Loads a table on a cache miss.
+     */
+    public interface Loader {
+        DatabaseTable load();
+    }
+}
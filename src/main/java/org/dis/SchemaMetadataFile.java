@@ -0,0 +1,241 @@
+package org.dis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Persists loaded <code>DatabaseTable</code> graphs to a local file in a compact binary format, so that a new JVM
+ * can skip introspecting a schema that has not changed.  The file starts with the schema fingerprint it was written
+ * for, and is ignored when the fingerprint no longer matches.  The format is:
+ * <code>
+ *  int magic, int version, UTF fingerprint,
+ *  int tables, per table: owner, UTF name, boolean index organized,
+ *      boolean child constraints resolved, boolean triggers resolved,
+ *      int columns, per column: UTF name, int sql type,
+ *      int triggers, per trigger: owner, UTF name,
+ *  int constraints, per constraint: UTF name, int parent table index, int child table index
+ * </code>
+ * where an owner is a boolean presence flag followed by a UTF string when present.
+ * </p>
+ * <p>
+ * Lazily loaded tables are written with the parts of their structure that have been resolved so far; the parts that
+ * have not are flagged, and are resolved on first use after the file is read.
+ * </p>
+ * <p>
+ * Files are written to a temporary file that is then renamed over the target, so concurrent writers and readers,
+ * including other JVMs, never see a partially written file.
+ * </p>
+ */
+final class SchemaMetadataFile {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMetadataFile.class);
+
+    private static final int MAGIC = 0x44495353;
+
+    private static final int VERSION = 2;
+
+    private SchemaMetadataFile() {
+    }
+
+    /**
+     * @param file          the file to read
+     * @param fingerprint   the current schema fingerprint
+     * @return the tables in the file, or null when the file does not exist, was written for a different
+     * fingerprint or cannot be read.
+     */
+    static List<DatabaseTable> read(final File file, final String fingerprint) {
+        if (!file.isFile()) {
+            return null;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.info("Ignoring schema cache file [{}] with an unknown format.", file);
+                return null;
+            }
+            final String fileFingerprint = in.readUTF();
+            if (!fileFingerprint.equals(fingerprint)) {
+                logger.info("Ignoring schema cache file [{}], the schema has changed since it was written.", file);
+                return null;
+            }
+            return readTables(in);
+        } catch (IOException e) {
+            logger.warn("Failed to read schema cache file [" + file + "], the schema will be loaded from the database.", e);
+            return null;
+        } catch (RuntimeException e) {
+            logger.warn("Schema cache file [" + file + "] is corrupt, the schema will be loaded from the database.", e);
+            return null;
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * @param file          the file to write
+     * @param fingerprint   the fingerprint of the schema the tables were loaded from
+     * @param tables        the tables to write, with every table their constraints reference
+     */
+    static void write(final File file, final String fingerprint, final Collection<DatabaseTable> tables) {
+        final File directory = file.getAbsoluteFile().getParentFile();
+        File temporaryFile = null;
+        DataOutputStream out = null;
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Cannot create directory [" + directory + "]");
+            }
+            temporaryFile = File.createTempFile(file.getName(), ".tmp", directory);
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(fingerprint);
+            writeTables(out, tables);
+            out.close();
+            out = null;
+            if (!temporaryFile.renameTo(file) && !(file.delete() && temporaryFile.renameTo(file))) {
+                throw new IOException("Cannot rename [" + temporaryFile + "] to [" + file + "]");
+            }
+            logger.debug("Wrote [{}] tables to schema cache file [{}]", tables.size(), file);
+        } catch (IOException e) {
+            logger.warn("Failed to write schema cache file [" + file + "]", e);
+        } finally {
+            close(out);
+            if (temporaryFile != null && temporaryFile.exists() && !temporaryFile.delete()) {
+                temporaryFile.deleteOnExit();
+            }
+        }
+    }
+
+    private static void writeTables(final DataOutputStream out, final Collection<DatabaseTable> tables)
+            throws IOException {
+        final Map<DatabaseTable, Integer> indexes = new IdentityHashMap<DatabaseTable, Integer>();
+        final List<DatabaseTable> ordered = new ArrayList<DatabaseTable>(tables);
+        for (int i = 0; i < ordered.size(); i++) {
+            indexes.put(ordered.get(i), i);
+        }
+        final List<DatabaseReferentialConstraint> constraints = new ArrayList<DatabaseReferentialConstraint>();
+        final List<Integer> parentIndexes = new ArrayList<Integer>();
+        for (int i = 0; i < ordered.size(); i++) {
+            if (!ordered.get(i).isChildConstraintsResolved()) {
+                continue;
+            }
+            for (final DatabaseReferentialConstraint constraint : ordered.get(i).getChildConstraints()) {
+                if (!indexes.containsKey(constraint.getChildTable())) {
+                    indexes.put(constraint.getChildTable(), ordered.size());
+                    ordered.add(constraint.getChildTable());
+                }
+                constraints.add(constraint);
+                parentIndexes.add(i);
+            }
+        }
+
+        out.writeInt(ordered.size());
+        for (final DatabaseTable table : ordered) {
+            writeOwner(out, table.getOwner());
+            out.writeUTF(table.getTableName());
+            out.writeBoolean(table.isIndexOrganized());
+            out.writeBoolean(table.isChildConstraintsResolved());
+            out.writeBoolean(table.isDatabaseTriggersResolved());
+            out.writeInt(table.getColumns().size());
+            for (final DatabaseColumn column : table.getColumns()) {
+                out.writeUTF(column.getColumnName());
+                out.writeInt(column.getSqlType());
+            }
+            final List<DatabaseTrigger> triggers = table.isDatabaseTriggersResolved()
+                    ? table.getDatabaseTriggers() : new ArrayList<DatabaseTrigger>();
+            out.writeInt(triggers.size());
+            for (final DatabaseTrigger trigger : triggers) {
+                writeOwner(out, trigger.getOwner());
+                out.writeUTF(trigger.getTriggerName());
+            }
+        }
+        out.writeInt(constraints.size());
+        for (int i = 0; i < constraints.size(); i++) {
+            final DatabaseReferentialConstraint constraint = constraints.get(i);
+            out.writeUTF(constraint.getConstraintName());
+            out.writeInt(parentIndexes.get(i));
+            out.writeInt(indexes.get(constraint.getChildTable()));
+        }
+    }
+
+    private static List<DatabaseTable> readTables(final DataInputStream in) throws IOException {
+        final int tableCount = in.readInt();
+        final List<DatabaseTable> tables = new ArrayList<DatabaseTable>(tableCount);
+        for (int i = 0; i < tableCount; i++) {
+            final DatabaseTable table = new DatabaseTable();
+            final String owner = readOwner(in);
+            if (owner != null) {
+                table.setOwner(owner);
+            }
+            table.setTableName(in.readUTF());
+            table.setIndexOrganized(in.readBoolean());
+            final boolean childConstraintsResolved = in.readBoolean();
+            final boolean databaseTriggersResolved = in.readBoolean();
+            final int columnCount = in.readInt();
+            final List<DatabaseColumn> columns = new ArrayList<DatabaseColumn>(columnCount);
+            for (int j = 0; j < columnCount; j++) {
+                columns.add(new DatabaseColumn(in.readUTF(), in.readInt()));
+            }
+            table.setColumns(columns);
+            final int triggerCount = in.readInt();
+            for (int j = 0; j < triggerCount; j++) {
+                final DatabaseTrigger trigger = new DatabaseTrigger();
+                trigger.setDatabaseTable(table);
+                trigger.setOwner(readOwner(in));
+                trigger.setTriggerName(in.readUTF());
+                table.getDatabaseTriggers().add(trigger);
+            }
+            table.setStructureResolver(null, childConstraintsResolved, databaseTriggersResolved);
+            tables.add(table);
+        }
+        final int constraintCount = in.readInt();
+        for (int i = 0; i < constraintCount; i++) {
+            final DatabaseReferentialConstraint constraint = new DatabaseReferentialConstraint();
+            constraint.setConstraintName(in.readUTF());
+            final DatabaseTable parentTable = tables.get(in.readInt());
+            final DatabaseTable childTable = tables.get(in.readInt());
+            constraint.setParentTable(parentTable);
+            constraint.setChildTable(childTable);
+            parentTable.getChildConstraints().add(constraint);
+            childTable.addParentConstraint(constraint);
+        }
+        return tables;
+    }
+
+    private static void writeOwner(final DataOutputStream out, final String owner) throws IOException {
+        out.writeBoolean(owner != null);
+        if (owner != null) {
+            out.writeUTF(owner);
+        }
+    }
+
+    private static String readOwner(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void close(final Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close schema cache file.", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.dis;
+
+import org.springframework.util.Assert;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Splits a dataset's tables into independent components and runs work for each component on its own worker.  Two
+ * tables belong to the same component when their child referential constraint closures overlap, i.e. they are
+ * weakly connected through foreign keys.  Tables in different components can be deleted and seeded concurrently
+ * without violating any constraint.
+ * </p>
+ */
+final class SeedingScheduler {
+
+    private static final AtomicInteger schedulerCount = new AtomicInteger();
+
+    private final int threads;
+
+    private volatile ExecutorService executorService;
+
+    SeedingScheduler(final int threads) {
+        Assert.isTrue(threads > 0, "threads must be greater than zero.");
+        this.threads = threads;
+    }
+
+    /**
+     * <p>
+     * Groups the given tables into weakly connected components.  Components are returned in the order of their
+     * first table, and the tables of a component are ordered parent before child, otherwise keeping the order in which
+     * they were given.
+     * </p>
+     * @param databaseTables the tables to group
+     * @param index          an index covering the tables
+     * @return the tables of each component
+     */
+    static List<List<DatabaseTable>> components(final Collection<DatabaseTable> databaseTables,
+                                                final SchemaGraphIndex index) {
+        final int[] roots = new int[index.size()];
+        for (int i = 0; i < roots.length; i++) {
+            roots[i] = i;
+        }
+        for (final DatabaseTable table : databaseTables) {
+            final int id = index.getId(table);
+            final BitSet closure = index.childClosure(table);
+            for (int reachable = closure.nextSetBit(0); reachable >= 0; reachable = closure.nextSetBit(reachable + 1)) {
+                union(roots, id, reachable);
+            }
+        }
+
+        final Map<Integer, List<DatabaseTable>> components = new LinkedHashMap<Integer, List<DatabaseTable>>();
+        for (final DatabaseTable table : databaseTables) {
+            final int root = find(roots, index.getId(table));
+            List<DatabaseTable> component = components.get(root);
+            if (component == null) {
+                component = new ArrayList<DatabaseTable>();
+                components.put(root, component);
+            }
+            component.add(table);
+        }
+
+        final List<List<DatabaseTable>> result = new ArrayList<List<DatabaseTable>>();
+        for (final List<DatabaseTable> component : components.values()) {
+            result.add(index.parentsFirst(component));
+        }
+        return result;
+    }
+
+    /**
+     * <p>
+     * Runs the tasks, one per worker, and waits for all of them to finish.  The first failure is rethrown once every
+     * task has completed.
+     * </p>
+     */
+    void execute(final List<Runnable> tasks) {
+        if (tasks.size() == 1 || threads == 1) {
+            for (final Runnable task : tasks) {
+                task.run();
+            }
+            return;
+        }
+        final List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (final Runnable task : tasks) {
+            futures.add(getExecutorService().submit(task));
+        }
+        RuntimeException failure = null;
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DatabaseTestException("Interrupted while seeding the dataset.", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                            : new DatabaseTestException("Failed to seed the dataset.", e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private ExecutorService getExecutorService() {
+        if (executorService == null) {
+            synchronized (this) {
+                if (executorService == null) {
+                    executorService = Executors.newFixedThreadPool(threads, new SeedingThreadFactory());
+                }
+            }
+        }
+        return executorService;
+    }
+
+    /**
+     * <p>
+     * Shuts down the workers, letting running tasks finish.  A scheduler used again afterwards starts new workers.
+     * </p>
+     */
+    synchronized void shutdown() {
+        if (executorService != null) {
+            executorService.shutdown();
+            executorService = null;
+        }
+    }
+
+    private static int find(final int[] roots, final int id) {
+        int root = id;
+        while (roots[root] != root) {
+            root = roots[root];
+        }
+        roots[id] = root;
+        return root;
+    }
+
+    private static void union(final int[] roots, final int first, final int second) {
+        final int firstRoot = find(roots, first);
+        final int secondRoot = find(roots, second);
+        if (firstRoot != secondRoot) {
+            roots[secondRoot] = firstRoot;
+        }
+    }
+
+    private static final class SeedingThreadFactory implements ThreadFactory {
+
+        private final int schedulerNumber = schedulerCount.incrementAndGet();
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable,
+                    "dis-seeding-" + schedulerNumber + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
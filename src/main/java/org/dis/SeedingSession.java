@@ -0,0 +1,183 @@
+package org.dis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * <p>
+ * Pins a single connection to the current thread for the duration of a seeding sequence, so that every delete,
+ * trigger statement and insert issued through the {@link DatabaseTableService} runs on the same connection and in
+ * the same transaction, rather than checking a connection out of the pool and auto-committing per statement.
+ * </p>
+ * <p>
+ * The connection is bound through Spring's {@link TransactionSynchronizationManager}, which is where
+ * <code>JdbcTemplate</code> looks for a transactional connection.  With a commit interval of zero the whole sequence
+ * is one transaction, otherwise the session commits every <code>commitInterval</code> inserted rows.
+ * </p>
+ * <p>
+ * When a connection is already bound to the thread, for instance by a Spring managed transaction, the session
+ * participates in it: it uses that connection and leaves committing and rolling back to its owner.
+ * </p>
+ * <p>
+ * Note that Oracle commits implicitly around DDL, so on Oracle the trigger statements end the current transaction.
+ * </p>
+ */
+public final class SeedingSession {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeedingSession.class);
+
+    private final DataSource dataSource;
+
+    private final int commitInterval;
+
+    // null when participating in a connection that is already bound to the thread
+    private final Connection connection;
+
+    private final boolean previousAutoCommit;
+
+    private int uncommittedRows;
+
+    private boolean closed;
+
+    private SeedingSession(final DataSource dataSource, final int commitInterval, final Connection connection,
+                           final boolean previousAutoCommit) {
+        this.dataSource = dataSource;
+        this.commitInterval = commitInterval;
+        this.connection = connection;
+        this.previousAutoCommit = previousAutoCommit;
+    }
+
+    /**
+     * <p>
+     * Opens a session on the current thread.
+     * </p>
+     * @param dataSource        the data source to pin a connection from
+     * @param commitInterval    the number of inserted rows after which to commit, zero for a single transaction
+     * @return the open session, which must be closed by the caller
+     */
+    static SeedingSession open(final DataSource dataSource, final int commitInterval) {
+        Assert.notNull(dataSource, "dataSource is required to open a seeding session.");
+        Assert.isTrue(commitInterval >= 0, "commitInterval cannot be negative.");
+        if (isConnectionBound(dataSource)) {
+            logger.debug("Seeding session is participating in the connection bound to the current thread.");
+            return new SeedingSession(dataSource, commitInterval, null, false);
+        }
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            final boolean previousAutoCommit = connection.getAutoCommit();
+            if (previousAutoCommit) {
+                connection.setAutoCommit(false);
+            }
+            TransactionSynchronizationManager.bindResource(dataSource, new SessionConnectionHolder(connection));
+            return new SeedingSession(dataSource, commitInterval, connection, previousAutoCommit);
+        } catch (SQLException e) {
+            DataSourceUtils.releaseConnection(connection, null);
+            throw new DatabaseTestException("Failed to open a seeding session.", e);
+        }
+    }
+
+    /**
+     * @return true when a connection for the data source is already bound to the current thread.
+     */
+    static boolean isConnectionBound(final DataSource dataSource) {
+        return TransactionSynchronizationManager.hasResource(dataSource);
+    }
+
+    /**
+     * @return true when the connection bound to the current thread for the data source is owned by a seeding
+     * session, which alone may commit it.
+     */
+    static boolean isOwnerBound(final DataSource dataSource) {
+        return TransactionSynchronizationManager.getResource(dataSource) instanceof SessionConnectionHolder;
+    }
+
+    public int getCommitInterval() {
+        return commitInterval;
+    }
+
+    /**
+     * @return true when this session owns its connection, rather than participating in one bound by someone else.
+     */
+    public boolean isOwner() {
+        return connection != null;
+    }
+
+    /**
+     * <p>
+     * Records that rows have been inserted, committing once the commit interval has been reached.
+     * </p>
+     * @param rows the number of rows inserted
+     */
+    public void rowsInserted(final int rows) {
+        uncommittedRows += rows;
+        if (commitInterval > 0 && uncommittedRows >= commitInterval) {
+            commit();
+        }
+    }
+
+    public void commit() {
+        if (isOwner()) {
+            try {
+                connection.commit();
+                uncommittedRows = 0;
+            } catch (SQLException e) {
+                throw new DatabaseTestException("Failed to commit the seeding session.", e);
+            }
+        }
+    }
+
+    public void rollback() {
+        if (isOwner()) {
+            try {
+                connection.rollback();
+                uncommittedRows = 0;
+            } catch (SQLException e) {
+                throw new DatabaseTestException("Failed to roll back the seeding session.", e);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Rolls back anything that has not been committed, unbinds the connection from the thread and returns it to the
+     * data source.
+     * </p>
+     */
+    public void close() {
+        if (closed || !isOwner()) {
+            closed = true;
+            return;
+        }
+        closed = true;
+        try {
+            TransactionSynchronizationManager.unbindResource(dataSource);
+            connection.rollback();
+            if (previousAutoCommit) {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to reset the seeding session connection.", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, null);
+        }
+    }
+
+    /**
+     * Marks the connection bound by a session that owns it, as opposed to one it participates in.
+     */
+    private static final class SessionConnectionHolder extends ConnectionHolder {
+
+        private SessionConnectionHolder(final Connection connection) {
+            super(connection);
+        }
+    }
+}
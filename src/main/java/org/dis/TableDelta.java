@@ -0,0 +1,169 @@
+package org.dis;
+
+import org.dis.loader.DataSetRowCallback;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * <p>
+ * The statements that converge the current rows of a table on the rows a dataset holds for it, matching rows by
+ * primary key.  The desired rows are indexed by key up front, and the current rows are streamed through
+ * {@link #processRow(DataSet.DataSetRow)} one at a time, so only the desired rows are held in memory:
+ * <ul>
+ *  <li>a current row without a desired row is deleted,</li>
+ *  <li>a current row that differs from its desired row in any column of the table is updated, and</li>
+ *  <li>a desired row without a current row is inserted.</li>
+ * </ul>
+ * A column a desired row does not set is desired null, as column defaults are not known, so an update nulls it.
+ * Values are compared once coerced to the Java type of their column.
+ * </p>
+ */
+final class TableDelta implements DataSetRowCallback {
+
+    private final DatabaseTable table;
+
+    private final List<String> keyColumns;
+
+    private final Map<List<Object>, DataSet.DataSetRow> unmatched;
+
+    private final List<DataSet.DataSetRow> updates = new ArrayList<DataSet.DataSetRow>();
+
+    private final List<DataSet.DataSetRow> deletes = new ArrayList<DataSet.DataSetRow>();
+
+    /**
+     * @param table        the table, with its columns
+     * @param keyColumns   the primary key columns of the table, which every desired row must set
+     * @param desiredRows  the rows the table should hold
+     */
+    TableDelta(final DatabaseTable table, final List<String> keyColumns, final List<DataSet.DataSetRow> desiredRows) {
+        this.table = table;
+        this.keyColumns = keyColumns;
+        this.unmatched = new LinkedHashMap<List<Object>, DataSet.DataSetRow>();
+        for (final DataSet.DataSetRow row : desiredRows) {
+            if (unmatched.put(key(row), row) != null) {
+                throw new DatabaseTestException("The dataset holds more than one row with primary key " + key(row)
+                        + " for table [" + table.getTableName() + "].");
+            }
+        }
+    }
+
+    /**
+     * @return true when every row sets every primary key column, so that it can be matched by key.
+     */
+    static boolean isKeyed(final List<String> keyColumns, final List<DataSet.DataSetRow> rows) {
+        if (keyColumns.isEmpty()) {
+            return false;
+        }
+        for (final DataSet.DataSetRow row : rows) {
+            if (!row.getValues().keySet().containsAll(keyColumns)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void processRow(final DataSet.DataSetRow current) {
+        final DataSet.DataSetRow desired = unmatched.remove(key(current));
+        if (desired == null) {
+            deletes.add(current);
+        } else if (!matches(desired, current)) {
+            updates.add(updateRow(desired));
+        }
+    }
+
+    /**
+     * @return the desired rows no current row matched, once every current row has been processed.
+     */
+    List<DataSet.DataSetRow> getInserts() {
+        return new ArrayList<DataSet.DataSetRow>(unmatched.values());
+    }
+
+    /**
+     * @return the desired rows that differ from their current row, setting every column of the table.
+     */
+    List<DataSet.DataSetRow> getUpdates() {
+        return updates;
+    }
+
+    /**
+     * @return the current rows to delete, of which only the primary key columns are meaningful.
+     */
+    List<DataSet.DataSetRow> getDeletes() {
+        return deletes;
+    }
+
+    DatabaseTable getTable() {
+        return table;
+    }
+
+    List<String> getKeyColumns() {
+        return keyColumns;
+    }
+
+    private List<Object> key(final DataSet.DataSetRow row) {
+        final List<Object> key = new ArrayList<Object>(keyColumns.size());
+        for (final String keyColumn : keyColumns) {
+            final Object value = coerce(keyColumn, row.getValueFor(keyColumn));
+            // decimals that only differ in scale must match
+            key.add(value instanceof BigDecimal ? normalize((BigDecimal) value) : value);
+        }
+        return key;
+    }
+
+    private boolean matches(final DataSet.DataSetRow desired, final DataSet.DataSetRow current) {
+        for (final String columnName : columnNames(desired)) {
+            final Object desiredValue = coerce(columnName, desired.getValueFor(columnName));
+            final Object currentValue = coerce(columnName, current.getValueFor(columnName));
+            if (!isSameValue(desiredValue, currentValue)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the desired row with the columns it does not set explicitly set to null.
+     */
+    private DataSet.DataSetRow updateRow(final DataSet.DataSetRow desired) {
+        final DataSet.DataSetRow row = new DataSet.DataSetRow();
+        row.setDatabaseTable(desired.getDatabaseTable());
+        for (final String columnName : columnNames(desired)) {
+            row.addColumnValue(columnName, desired.getValueFor(columnName));
+        }
+        return row;
+    }
+
+    /**
+     * @return the columns of the table, and any other column the desired row sets.
+     */
+    private Set<String> columnNames(final DataSet.DataSetRow desired) {
+        final Set<String> columnNames = new LinkedHashSet<String>();
+        for (final DatabaseColumn column : table.getColumns()) {
+            columnNames.add(column.getColumnName());
+        }
+        for (final String columnName : desired.getValues().keySet()) {
+            columnNames.add(columnName.toUpperCase());
+        }
+        return columnNames;
+    }
+
+    private Object coerce(final String columnName, final Object value) {
+        final DatabaseColumn column = table.getColumn(columnName);
+        return column == null ? value : ColumnValues.coerce(value, column.getSqlType());
+    }
+
+    private static boolean isSameValue(final Object first, final Object second) {
+        if (first == null || second == null) {
+            return first == second;
+        }
+        if (first instanceof BigDecimal && second instanceof BigDecimal) {
+            return ((BigDecimal) first).compareTo((BigDecimal) second) == 0;
+        }
+        return first.equals(second);
+    }
+
+    private static BigDecimal normalize(final BigDecimal value) {
+        return value.signum() == 0 ? BigDecimal.ZERO : value.stripTrailingZeros();
+    }
+}
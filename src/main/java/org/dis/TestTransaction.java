@@ -0,0 +1,159 @@
+package org.dis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * <p>
+ * A transaction shared by the seeding of a test and the test itself, which is rolled back rather than committed once
+ * the test completes, so that the tables need no reset afterwards.
+ * </p>
+ * <p>
+ * Like the {@link SeedingSession}, the connection is bound through Spring's {@link TransactionSynchronizationManager},
+ * so that every <code>JdbcTemplate</code> on the data source, in the service and in the code under test, runs on it.
+ * Seeding participates in the transaction and never commits it.  Savepoints let each test method roll back to the
+ * rows seeded for its class, on the databases where savepoints can be relied upon.
+ * </p>
+ * <p>
+ * Anything that commits implicitly, such as DDL on Oracle and HSQLDB, would end the transaction, so the
+ * {@link DatabaseTableService} refuses to issue it while a test transaction is active.
+ * </p>
+ */
+public final class TestTransaction {
+
+    private static final Logger logger = LoggerFactory.getLogger(TestTransaction.class);
+
+    private static final String SAVEPOINT_PREFIX = "DIS_SAVEPOINT_";
+
+    private final DataSource dataSource;
+
+    private final Connection connection;
+
+    private final boolean previousAutoCommit;
+
+    private final boolean savepointReliable;
+
+    private int savepoints;
+
+    private boolean closed;
+
+    private TestTransaction(final DataSource dataSource, final Connection connection,
+                            final boolean previousAutoCommit, final boolean savepointReliable) {
+        this.dataSource = dataSource;
+        this.connection = connection;
+        this.previousAutoCommit = previousAutoCommit;
+        this.savepointReliable = savepointReliable;
+    }
+
+    /**
+     * <p>
+     * Begins a test transaction on the current thread.
+     * </p>
+     * @param dataSource          the data source to pin a connection from
+     * @param savepointReliable   whether rolling back to a savepoint of the database restores it exactly
+     * @return the transaction, which must be rolled back by the caller
+     */
+    static TestTransaction begin(final DataSource dataSource, final boolean savepointReliable) {
+        Assert.notNull(dataSource, "dataSource is required to begin a test transaction.");
+        if (TransactionSynchronizationManager.hasResource(dataSource)) {
+            throw new DatabaseTestException("Cannot begin a test transaction, a connection is already bound to the "
+                    + "current thread.");
+        }
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            final boolean previousAutoCommit = connection.getAutoCommit();
+            if (previousAutoCommit) {
+                connection.setAutoCommit(false);
+            }
+            TransactionSynchronizationManager.bindResource(dataSource, new TestConnectionHolder(connection));
+            logger.debug("Began test transaction on thread [{}]", Thread.currentThread().getName());
+            return new TestTransaction(dataSource, connection, previousAutoCommit, savepointReliable);
+        } catch (SQLException e) {
+            DataSourceUtils.releaseConnection(connection, null);
+            throw new DatabaseTestException("Failed to begin a test transaction.", e);
+        }
+    }
+
+    /**
+     * @return true when a test transaction on the data source is active on the current thread.
+     */
+    public static boolean isActive(final DataSource dataSource) {
+        return dataSource != null
+                && TransactionSynchronizationManager.getResource(dataSource) instanceof TestConnectionHolder;
+    }
+
+    /**
+     * @return false when the database does not restore the rows exactly when rolling back to a savepoint, in which
+     * case the transaction should only be rolled back as a whole.
+     */
+    public boolean isSavepointReliable() {
+        return savepointReliable;
+    }
+
+    /**
+     * <p>
+     * Sets a named savepoint, as some drivers, such as HSQLDB's, cannot roll back to an unnamed one.
+     * </p>
+     */
+    public Savepoint setSavepoint() {
+        try {
+            return connection.setSavepoint(SAVEPOINT_PREFIX + ++savepoints);
+        } catch (SQLException e) {
+            throw new DatabaseTestException("Failed to set a savepoint in the test transaction.", e);
+        }
+    }
+
+    public void rollbackToSavepoint(final Savepoint savepoint) {
+        try {
+            connection.rollback(savepoint);
+        } catch (SQLException e) {
+            throw new DatabaseTestException("Failed to roll back the test transaction to a savepoint.", e);
+        }
+    }
+
+    /**
+     * <p>
+     * Rolls back everything done in the transaction, unbinds the connection from the thread and returns it to the
+     * data source.
+     * </p>
+     */
+    public void rollback() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            TransactionSynchronizationManager.unbindResource(dataSource);
+            connection.rollback();
+            if (previousAutoCommit) {
+                connection.setAutoCommit(true);
+            }
+            logger.debug("Rolled back test transaction on thread [{}]", Thread.currentThread().getName());
+        } catch (SQLException e) {
+            throw new DatabaseTestException("Failed to roll back the test transaction.", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, null);
+        }
+    }
+
+    /**
+     * Marks the connection bound by a test transaction, as opposed to one bound by a {@link SeedingSession} or a
+     * Spring managed transaction.
+     */
+    private static final class TestConnectionHolder extends ConnectionHolder {
+
+        private TestConnectionHolder(final Connection connection) {
+            super(connection);
+        }
+    }
+}
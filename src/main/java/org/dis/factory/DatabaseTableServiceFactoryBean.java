@@ -1,24 +1,50 @@
 package org.dis.factory;
 
 import org.dis.*;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
 
 import javax.sql.DataSource;
+import java.io.File;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 
 @SuppressWarnings("unused")
-public class DatabaseTableServiceFactoryBean implements FactoryBean, InitializingBean {
+public class DatabaseTableServiceFactoryBean implements FactoryBean, InitializingBean, DisposableBean {
 
     private DataSource dataSource;
 
     private String defaultSchema;
 
+    private int batchSize = AbstractDatabaseTableDao.DEFAULT_BATCH_SIZE;
+
+    private int maxRowsPerStatement = AbstractDatabaseTableDao.DEFAULT_MAX_ROWS_PER_STATEMENT;
+
+    private InsertStrategy insertStrategy = InsertStrategy.BULK_LOAD;
+
+    private int directPathInsertThreshold = OracleDatabaseTableDao.DEFAULT_DIRECT_PATH_INSERT_THRESHOLD;
+
+    private int seedingThreads = Runtime.getRuntime().availableProcessors();
+
+    private InsertPlanCache insertPlanCache = InsertPlanCache.shared();
+
+    private boolean bulkIntrospection;
+
+    private boolean lazyIntrospection;
+
+    private boolean dirtyTableTracking;
+
+    private File schemaCacheDirectory;
+
+    private DatabaseTableServiceImpl databaseTableService;
+
     public void setDataSource(DataSource dataSource) {
         this.dataSource = dataSource;
     }
@@ -27,18 +53,105 @@ public class DatabaseTableServiceFactoryBean implements FactoryBean, Initializin
         this.defaultSchema = defaultSchema;
     }
 
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setMaxRowsPerStatement(int maxRowsPerStatement) {
+        this.maxRowsPerStatement = maxRowsPerStatement;
+    }
+
+    public void setInsertStrategy(InsertStrategy insertStrategy) {
+        this.insertStrategy = insertStrategy;
+    }
+
+    public void setDirectPathInsertThreshold(int directPathInsertThreshold) {
+        this.directPathInsertThreshold = directPathInsertThreshold;
+    }
+
+    public void setSeedingThreads(int seedingThreads) {
+        this.seedingThreads = seedingThreads;
+    }
+
+    /**
+     * @param insertPlanCache the cache to share insert plans through, defaults to {@link InsertPlanCache#shared()}
+     */
+    public void setInsertPlanCache(InsertPlanCache insertPlanCache) {
+        this.insertPlanCache = insertPlanCache;
+    }
+
+    /**
+     * @param bulkIntrospection true to load the structure of a whole schema at once, see
+     *                          {@link DatabaseTableServiceImpl#setBulkIntrospection(boolean)}
+     */
+    public void setBulkIntrospection(boolean bulkIntrospection) {
+        this.bulkIntrospection = bulkIntrospection;
+    }
+
+    /**
+     * @param lazyIntrospection true to resolve child constraints and triggers on first use, see
+     *                          {@link DatabaseTableServiceImpl#setLazyIntrospection(boolean)}
+     */
+    public void setLazyIntrospection(boolean lazyIntrospection) {
+        this.lazyIntrospection = lazyIntrospection;
+    }
+
+    /**
+     * @param dirtyTableTracking true to only reset the tables modified since they were seeded, see
+     *                           {@link DatabaseTableServiceImpl#setDirtyTableTracking(boolean)}
+     */
+    public void setDirtyTableTracking(boolean dirtyTableTracking) {
+        this.dirtyTableTracking = dirtyTableTracking;
+    }
+
+    /**
+     * @param schemaCacheDirectory the directory to persist loaded table structures to, one file per database and
+     *                             schema, see {@link DatabaseTableServiceImpl#setSchemaCacheFile(File)}.  Not set by
+     *                             default.
+     */
+    public void setSchemaCacheDirectory(File schemaCacheDirectory) {
+        this.schemaCacheDirectory = schemaCacheDirectory;
+    }
+
     public void afterPropertiesSet() throws Exception {
         Assert.state(dataSource != null, "dataSource is required to construct DatabaseTableService.");
     }
 
+    /**
+     * <p>
+     * Destroys the service with its application context, before the data source it depends on is closed.
+     * </p>
+     */
+    public void destroy() {
+        if (databaseTableService != null) {
+            databaseTableService.destroy();
+        }
+    }
+
     public Object getObject() throws Exception {
         final AbstractDatabaseTableDao databaseTableDao = createDatabaseTableDao();
         JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
         databaseTableDao.setJdbcTemplate(jdbcTemplate);
         databaseTableDao.setSimpleJdbcTemplate(new SimpleJdbcTemplate(dataSource));
+        databaseTableDao.setBatchSize(batchSize);
+        databaseTableDao.setMaxRowsPerStatement(maxRowsPerStatement);
+        databaseTableDao.setInsertStrategy(insertStrategy);
+        databaseTableDao.setInsertPlanCache(insertPlanCache);
 
         final DatabaseTableServiceImpl databaseTableService = new DatabaseTableServiceImpl();
         databaseTableService.setDatabaseTableDao(databaseTableDao);
+        databaseTableService.setDataSource(dataSource);
+        databaseTableService.setSeedingThreads(seedingThreads);
+        databaseTableService.setBulkIntrospection(bulkIntrospection);
+        databaseTableService.setLazyIntrospection(lazyIntrospection);
+        databaseTableService.setDirtyTableTracking(dirtyTableTracking);
+        databaseTableService.setSchemaMetadataCache(SchemaMetadataCache.forScope(databaseTableDao.getDatabaseIdentity()));
+        if (schemaCacheDirectory != null) {
+            final String fileName = "dis-schema-"
+                    + DigestUtils.md5DigestAsHex(databaseTableDao.getDatabaseIdentity().getBytes("UTF-8")) + ".bin";
+            databaseTableService.setSchemaCacheFile(new File(schemaCacheDirectory, fileName));
+        }
+        this.databaseTableService = databaseTableService;
         return databaseTableService;
     }
 
@@ -51,21 +164,31 @@ public class DatabaseTableServiceFactoryBean implements FactoryBean, Initializin
     }
 
     private AbstractDatabaseTableDao createDatabaseTableDao() {
+        Connection connection = null;
         try {
-            Connection connection = dataSource.getConnection();
+            connection = dataSource.getConnection();
             DatabaseMetaData metaData = connection.getMetaData();
-            final String databaseProductName = metaData.getDatabaseProductName();
-            if (databaseProductName.contains("HSQL")) {
-                return new HSQLDatabaseTableDao(dataSource);
-            } else if (databaseProductName.contains("Oracle")) {
-                return new OracleDatabaseTableDao(defaultSchema);
-            } else if (databaseProductName.contains("PostgreSQL")) {
-                return new PostgresDatabaseTableDao(defaultSchema);
-            } else {
-                throw new RuntimeException("Cannot recognize Data base type: '" + databaseProductName + "'");
-            }
+            final AbstractDatabaseTableDao databaseTableDao = createDatabaseTableDao(metaData.getDatabaseProductName());
+            databaseTableDao.setDatabaseIdentity(metaData.getURL() + "|" + metaData.getUserName() + "|" + defaultSchema);
+            return databaseTableDao;
         } catch (SQLException e) {
             throw new DatabaseTestException("Failed to get product name of database.", e);
+        } finally {
+            JdbcUtils.closeConnection(connection);
+        }
+    }
+
+    private AbstractDatabaseTableDao createDatabaseTableDao(final String databaseProductName) {
+        if (databaseProductName.contains("HSQL")) {
+            return new HSQLDatabaseTableDao(dataSource);
+        } else if (databaseProductName.contains("Oracle")) {
+            final OracleDatabaseTableDao databaseTableDao = new OracleDatabaseTableDao(defaultSchema);
+            databaseTableDao.setDirectPathInsertThreshold(directPathInsertThreshold);
+            return databaseTableDao;
+        } else if (databaseProductName.contains("PostgreSQL")) {
+            return new PostgresDatabaseTableDao(defaultSchema);
+        } else {
+            throw new RuntimeException("Cannot recognize Data base type: '" + databaseProductName + "'");
         }
     }
 }
@@ -0,0 +1,87 @@
+package org.dis.loader;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * Evaluates the SpEL expressions of data set attribute values.  Most values are plain literals, which are recognised
+ * by scanning their characters and converted directly to the value SpEL would produce:
+ * <ul>
+ *  <li><code>'text'</code>, without embedded quotes, to a <code>String</code></li>
+ *  <li>an optionally negative decimal integer in the range of an <code>int</code> to an <code>Integer</code></li>
+ *  <li><code>true</code> and <code>false</code> to a <code>Boolean</code>, and <code>null</code> to null.</li>
+ * </ul>
+ * Any other value is parsed by SpEL once and the parsed expression is cached by its source text, so repeated
+ * expressions are only evaluated.  Expressions are still evaluated every time, as they may not be constant.
+ * </p>
+ */
+final class AttributeValues {
+
+    static final int MAX_CACHED_EXPRESSIONS = 4096;
+
+    private static final SpelExpressionParser parser = new SpelExpressionParser();
+
+    private static final ConcurrentMap<String, Expression> expressions = new ConcurrentHashMap<String, Expression>();
+
+    private AttributeValues() {
+    }
+
+    static Object evaluate(final String source) {
+        final int length = source.length();
+        if (length >= 2 && source.charAt(0) == '\'' && source.charAt(length - 1) == '\''
+                && source.indexOf('\'', 1) == length - 1) {
+            return source.substring(1, length - 1);
+        }
+        final Integer integer = parseInteger(source);
+        if (integer != null) {
+            return integer;
+        }
+        if ("true".equals(source)) {
+            return Boolean.TRUE;
+        } else if ("false".equals(source)) {
+            return Boolean.FALSE;
+        } else if ("null".equals(source)) {
+            return null;
+        }
+        return expression(source).getValue();
+    }
+
+    private static Expression expression(final String source) {
+        Expression expression = expressions.get(source);
+        if (expression == null) {
+            expression = parser.parseRaw(source);
+            if (expressions.size() < MAX_CACHED_EXPRESSIONS) {
+                expressions.putIfAbsent(source, expression);
+            }
+        }
+        return expression;
+    }
+
+    /**
+     * @return the integer, or null when the source is not a decimal integer in the range of an <code>int</code>.
+     */
+    private static Integer parseInteger(final String source) {
+        final int length = source.length();
+        final int start = length > 0 && source.charAt(0) == '-' ? 1 : 0;
+        // more than ten digits cannot be an int
+        if (length == start || length - start > 10) {
+            return null;
+        }
+        long value = 0;
+        for (int i = start; i < length; i++) {
+            final char c = source.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            value = value * 10 + (c - '0');
+        }
+        if (start == 1) {
+            value = -value;
+        }
+        return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? null : (int) value;
+    }
+}
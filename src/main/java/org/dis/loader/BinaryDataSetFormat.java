@@ -0,0 +1,180 @@
+package org.dis.loader;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.sql.Date;
+import java.sql.Timestamp;
+
+/**
+ * <p>
+ * The layout of a binary data set (<code>.dsb</code>) file, shared by the {@link BinaryDataSetWriter} and the
+ * {@link BinaryDataSetLoader}.  All numbers are big-endian.
+ * <pre>
+ * file       := MAGIC:int VERSION:short dictionary tableCount:int table*
+ * dictionary := count:int (length:int utf8:byte[length])*
+ * table      := name:int rowCount:int columnCount:int column*
+ * column     := name:int type:byte blockLength:int block
+ * block      := present:bitmap nulls:bitmap (fixed | variable)
+ * fixed      := value[rowCount], each of the type's width
+ * variable   := offsets:int[rowCount + 1] data:byte[offsets[rowCount]]
+ * </pre>
+ * Table and column names are indexes into the dictionary, a table name qualified by its owner as
+ * <code>owner.table</code> when it has one.  A column block holds the values of one column for every
+ * row of its table: the <code>present</code> bitmap marks the rows that have the column at all, and the
+ * <code>nulls</code> bitmap those whose value is null.  Values of fixed width types are stored at
+ * <code>row * width</code>, the others between their offsets.  A column whose values are of several types is
+ * {@link #MIXED}, each of its values prefixed by the type of the value.
+ * </p>
+ */
+final class BinaryDataSetFormat {
+
+    static final int MAGIC = 0x44534231;
+
+    static final short VERSION = 1;
+
+    static final String EXTENSION = ".dsb";
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    static final byte NULL = 0;
+    static final byte INTEGER = 1;
+    static final byte LONG = 2;
+    static final byte DOUBLE = 3;
+    static final byte BOOLEAN = 4;
+    static final byte TIMESTAMP = 5;
+    static final byte DATE = 6;
+    static final byte STRING = 7;
+    static final byte DECIMAL = 8;
+    static final byte MIXED = 9;
+
+    private BinaryDataSetFormat() {
+    }
+
+    /**
+     * @return the type of the value, or -1 when it cannot be stored.
+     */
+    static byte typeOf(final Object value) {
+        if (value == null) {
+            return NULL;
+        } else if (value instanceof Integer) {
+            return INTEGER;
+        } else if (value instanceof Long) {
+            return LONG;
+        } else if (value instanceof Double) {
+            return DOUBLE;
+        } else if (value instanceof Boolean) {
+            return BOOLEAN;
+        } else if (value instanceof Timestamp) {
+            return TIMESTAMP;
+        } else if (value instanceof Date) {
+            return DATE;
+        } else if (value instanceof String) {
+            return STRING;
+        } else if (value instanceof BigDecimal) {
+            return DECIMAL;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the number of bytes of each value of the type, or -1 when they vary.
+     */
+    static int widthOf(final byte type) {
+        switch (type) {
+            case NULL:
+                return 0;
+            case INTEGER:
+                return 4;
+            case LONG:
+            case DOUBLE:
+            case DATE:
+                return 8;
+            case BOOLEAN:
+                return 1;
+            case TIMESTAMP:
+                return 12;
+            default:
+                return -1;
+        }
+    }
+
+    static int bitmapLength(final int rowCount) {
+        return (rowCount + 7) / 8;
+    }
+
+    static byte[] encode(final byte type, final Object value) {
+        final int width = widthOf(type);
+        if (width >= 0) {
+            final ByteBuffer buffer = ByteBuffer.allocate(width);
+            switch (type) {
+                case INTEGER:
+                    buffer.putInt((Integer) value);
+                    break;
+                case LONG:
+                    buffer.putLong((Long) value);
+                    break;
+                case DOUBLE:
+                    buffer.putDouble((Double) value);
+                    break;
+                case BOOLEAN:
+                    buffer.put((byte) ((Boolean) value ? 1 : 0));
+                    break;
+                case TIMESTAMP:
+                    buffer.putLong(((Timestamp) value).getTime()).putInt(((Timestamp) value).getNanos());
+                    break;
+                case DATE:
+                    buffer.putLong(((Date) value).getTime());
+                    break;
+                default:
+                    break;
+            }
+            return buffer.array();
+        } else if (type == STRING) {
+            return ((String) value).getBytes(UTF8);
+        }
+        final BigDecimal decimal = (BigDecimal) value;
+        final byte[] unscaled = decimal.unscaledValue().toByteArray();
+        return ByteBuffer.allocate(4 + unscaled.length).putInt(decimal.scale()).put(unscaled).array();
+    }
+
+    /**
+     * @param buffer   the buffer, whose position is moved
+     * @param position the position of the value
+     * @param length   the number of bytes of the value, for the types without a fixed width
+     */
+    static Object decode(final byte type, final ByteBuffer buffer, final int position, final int length) {
+        switch (type) {
+            case NULL:
+                return null;
+            case INTEGER:
+                return buffer.getInt(position);
+            case LONG:
+                return buffer.getLong(position);
+            case DOUBLE:
+                return buffer.getDouble(position);
+            case BOOLEAN:
+                return buffer.get(position) != 0;
+            case TIMESTAMP:
+                final Timestamp timestamp = new Timestamp(buffer.getLong(position));
+                timestamp.setNanos(buffer.getInt(position + 8));
+                return timestamp;
+            case DATE:
+                return new Date(buffer.getLong(position));
+            case STRING:
+                return new String(bytes(buffer, position, length), UTF8);
+            case DECIMAL:
+                return new BigDecimal(new BigInteger(bytes(buffer, position + 4, length - 4)), buffer.getInt(position));
+            default:
+                throw new DataSetLoaderException("Unknown value type [" + type + "] in binary data set.");
+        }
+    }
+
+    private static byte[] bytes(final ByteBuffer buffer, final int position, final int length) {
+        final byte[] bytes = new byte[length];
+        buffer.position(position);
+        buffer.get(bytes);
+        return bytes;
+    }
+}
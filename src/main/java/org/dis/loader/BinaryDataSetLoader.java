@@ -0,0 +1,216 @@
+package org.dis.loader;
+
+import org.dis.DataSet;
+import org.dis.DatabaseTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.FileCopyUtils;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static org.dis.loader.BinaryDataSetFormat.*;
+
+/**
+ * <p>
+ * Loads a data set written by the {@link BinaryDataSetWriter}.  The file is memory mapped, so loading it costs little
+ * more than reading its pages, and nothing is parsed: only the dictionary and the position of each column block are
+ * read up front.  A resource inside a jar cannot be mapped and is read into memory instead.
+ * </p>
+ * <p>
+ * {@link #iterator()} decodes each row only when it is reached, and can be handed directly to
+ * {@link org.dis.DatabaseTableService#insertDataSet(java.util.Iterator, int)}, so that the rows of a large data set
+ * are never all held in memory at once.
+ * </p>
+ */
+public class BinaryDataSetLoader implements DataSetLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(BinaryDataSetLoader.class);
+
+    private final Resource resource;
+
+    public BinaryDataSetLoader(String resource) {
+        this.resource = new ClassPathResource(resource);
+    }
+
+    public BinaryDataSetLoader(File file) {
+        this.resource = new FileSystemResource(file);
+    }
+
+    /**
+     * @return whether the resource is a binary data set, judged by its file name.
+     */
+    public static boolean supports(final String resource) {
+        return resource.toLowerCase().endsWith(EXTENSION);
+    }
+
+    public DataSet load() {
+        final DataSet dataSet = new DataSet();
+        final Iterator<DataSet.DataSetRow> rows = iterator();
+        while (rows.hasNext()) {
+            dataSet.addRow(rows.next());
+        }
+        return dataSet;
+    }
+
+    /**
+     * @return the rows of the data set, grouped by table, each decoded when it is reached
+     */
+    public Iterator<DataSet.DataSetRow> iterator() {
+        return new RowIterator(read(map()));
+    }
+
+    private ByteBuffer map() {
+        try {
+            final File file;
+            try {
+                file = resource.getFile();
+            } catch (FileNotFoundException e) {
+                logger.debug("Reading resource [{}] into memory, as it is not a file.", resource);
+                return ByteBuffer.wrap(FileCopyUtils.copyToByteArray(resource.getInputStream()));
+            }
+            final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            try {
+                final FileChannel channel = randomAccessFile.getChannel();
+                // the mapping stays valid once the channel is closed
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } finally {
+                randomAccessFile.close();
+            }
+        } catch (IOException e) {
+            throw new DataSetLoaderException("Failed to map resource [" + resource + "].", e);
+        }
+    }
+
+    private Table[] read(final ByteBuffer buffer) {
+        if (buffer.remaining() < 6 || buffer.getInt() != MAGIC) {
+            throw new DataSetLoaderException("Resource [" + resource + "] is not a binary data set.");
+        }
+        final short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new DataSetLoaderException("Resource [" + resource + "] has version [" + version
+                    + "] of the binary data set format, rather than [" + VERSION + "].");
+        }
+        final String[] dictionary = new String[buffer.getInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            final byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            dictionary[i] = new String(bytes, UTF8);
+        }
+        final Table[] tables = new Table[buffer.getInt()];
+        for (int i = 0; i < tables.length; i++) {
+            final Table table = new Table(buffer, dictionary[buffer.getInt()], buffer.getInt(), buffer.getInt());
+            for (int column = 0; column < table.columnNames.length; column++) {
+                table.columnNames[column] = dictionary[buffer.getInt()];
+                table.types[column] = buffer.get();
+                final int blockLength = buffer.getInt();
+                table.blocks[column] = buffer.position();
+                buffer.position(buffer.position() + blockLength);
+            }
+            tables[i] = table;
+        }
+        return tables;
+    }
+
+    /**
+     * <p>
+     * The column blocks of one table, located in the buffer.
+     * </p>
+     */
+    private static final class Table {
+
+        private final ByteBuffer buffer;
+
+        private final DatabaseTable databaseTable;
+
+        private final int rowCount;
+
+        private final String[] columnNames;
+
+        private final byte[] types;
+
+        private final int[] blocks;
+
+        private Table(final ByteBuffer buffer, final String tableName, final int rowCount, final int columnCount) {
+            this.buffer = buffer;
+            this.databaseTable = DatabaseTable.parse(tableName);
+            this.rowCount = rowCount;
+            this.columnNames = new String[columnCount];
+            this.types = new byte[columnCount];
+            this.blocks = new int[columnCount];
+        }
+
+        DataSet.DataSetRow decodeRow(final int row) {
+            final DataSet.DataSetRow dataSetRow = new DataSet.DataSetRow();
+            dataSetRow.setDatabaseTable(databaseTable);
+            final int bitmapLength = bitmapLength(rowCount);
+            final int bit = 1 << (row & 7);
+            for (int column = 0; column < columnNames.length; column++) {
+                final int block = blocks[column];
+                if ((buffer.get(block + (row >> 3)) & bit) == 0) {
+                    continue;
+                }
+                if ((buffer.get(block + bitmapLength + (row >> 3)) & bit) != 0) {
+                    dataSetRow.addColumnValue(columnNames[column], null);
+                    continue;
+                }
+                final byte type = types[column];
+                final int width = widthOf(type);
+                final int values = block + 2 * bitmapLength;
+                final Object value;
+                if (width >= 0) {
+                    value = decode(type, buffer, values + row * width, width);
+                } else {
+                    final int start = buffer.getInt(values + 4 * row);
+                    final int end = buffer.getInt(values + 4 * (row + 1));
+                    final int position = values + 4 * (rowCount + 1) + start;
+                    value = type == MIXED ? decode(buffer.get(position), buffer, position + 1, end - start - 1)
+                            : decode(type, buffer, position, end - start);
+                }
+                dataSetRow.addColumnValue(columnNames[column], value);
+            }
+            return dataSetRow;
+        }
+    }
+
+    private static final class RowIterator implements Iterator<DataSet.DataSetRow> {
+
+        private final Table[] tables;
+
+        private int table;
+
+        private int row;
+
+        private RowIterator(final Table[] tables) {
+            this.tables = tables;
+        }
+
+        public boolean hasNext() {
+            while (table < tables.length && row == tables[table].rowCount) {
+                table++;
+                row = 0;
+            }
+            return table < tables.length;
+        }
+
+        public DataSet.DataSetRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return tables[table].decodeRow(row++);
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package org.dis.loader;
+
+import org.dis.DataSet;
+import org.dis.DatabaseTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.*;
+
+import static org.dis.loader.BinaryDataSetFormat.*;
+
+/**
+ * <p>
+ * Writes a {@link DataSet} in the binary data set format read by the {@link BinaryDataSetLoader}, see
+ * {@link BinaryDataSetFormat}.  Values may be null, or of the types produced by the other loaders: integers, longs,
+ * doubles, booleans, strings, decimals, timestamps and dates.
+ * </p>
+ * <p>
+ * Existing data set files are converted with {@link #convert(String, File)}, or from the command line:
+ * <code>java org.dis.loader.BinaryDataSetWriter /org/dis/big-table.xml src/test/resources/org/dis/big-table.dsb</code>
+ * </p>
+ */
+public class BinaryDataSetWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BinaryDataSetWriter.class);
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 2) {
+            logger.error("Usage: BinaryDataSetWriter <classpath resource> <binary data set file>");
+            return;
+        }
+        new BinaryDataSetWriter().convert(args[0], new File(args[1]));
+    }
+
+    /**
+     * <p>
+     * Loads an XML or delimited data set resource and writes it as a binary data set file.
+     * </p>
+     * @param resource the classpath resource of the data set
+     * @param file     the binary data set file to write
+     */
+    public void convert(final String resource, final File file) throws IOException {
+        final DataSetLoader loader = DelimitedFileDataSetLoader.supports(resource)
+                ? new DelimitedFileDataSetLoader(resource) : new XMLFileDataSetLoader(resource);
+        final DataSet dataSet = loader.load();
+        write(dataSet, file);
+        logger.info("Converted [{}] rows of resource [{}] to [{}].", new Object[]{dataSet.size(), resource, file});
+    }
+
+    public void write(final DataSet dataSet, final File file) throws IOException {
+        final OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file));
+        try {
+            write(dataSet, outputStream);
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    public void write(final DataSet dataSet, final OutputStream outputStream) throws IOException {
+        final Map<String, List<DataSet.DataSetRow>> tables = new LinkedHashMap<String, List<DataSet.DataSetRow>>();
+        final Map<String, String> tableNames = new HashMap<String, String>();
+        for (final DataSet.DataSetRow row : dataSet.getRows()) {
+            final String tableName = tableName(row.getDatabaseTable());
+            final String key = tableName.toUpperCase();
+            List<DataSet.DataSetRow> rows = tables.get(key);
+            if (rows == null) {
+                rows = new ArrayList<DataSet.DataSetRow>();
+                tables.put(key, rows);
+                tableNames.put(key, tableName);
+            }
+            rows.add(row);
+        }
+
+        final Dictionary dictionary = new Dictionary();
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final DataOutputStream bodyOutput = new DataOutputStream(body);
+        bodyOutput.writeInt(tables.size());
+        for (final Map.Entry<String, List<DataSet.DataSetRow>> table : tables.entrySet()) {
+            writeTable(tableNames.get(table.getKey()), table.getValue(), dictionary, bodyOutput);
+        }
+        bodyOutput.flush();
+
+        final DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(MAGIC);
+        output.writeShort(VERSION);
+        dictionary.write(output);
+        body.writeTo(output);
+        output.flush();
+    }
+
+    /**
+     * @return the name of the table qualified by its owner, if any, as read back by {@link DatabaseTable#parse}.
+     */
+    private static String tableName(final DatabaseTable databaseTable) {
+        return databaseTable.getOwner() == null ? databaseTable.getTableName()
+                : databaseTable.getOwner() + "." + databaseTable.getTableName();
+    }
+
+    private void writeTable(final String tableName, final List<DataSet.DataSetRow> rows, final Dictionary dictionary,
+                            final DataOutputStream output) throws IOException {
+        final Set<String> columnNames = new LinkedHashSet<String>();
+        for (final DataSet.DataSetRow row : rows) {
+            columnNames.addAll(row.getValues().keySet());
+        }
+        output.writeInt(dictionary.indexOf(tableName));
+        output.writeInt(rows.size());
+        output.writeInt(columnNames.size());
+        for (final String columnName : columnNames) {
+            output.writeInt(dictionary.indexOf(columnName));
+            final byte type = columnType(tableName, columnName, rows);
+            final byte[] block = columnBlock(type, columnName, rows);
+            output.writeByte(type);
+            output.writeInt(block.length);
+            output.write(block);
+        }
+    }
+
+    private byte columnType(final String tableName, final String columnName, final List<DataSet.DataSetRow> rows) {
+        byte columnType = NULL;
+        for (final DataSet.DataSetRow row : rows) {
+            final Object value = row.getValues().get(columnName);
+            final byte type = typeOf(value);
+            if (type < 0) {
+                throw new DataSetLoaderException("Cannot write value [" + value + "] of type ["
+                        + value.getClass().getName() + "] of column [" + tableName + "." + columnName
+                        + "] to a binary data set.");
+            }
+            if (type != NULL && type != columnType) {
+                columnType = columnType == NULL ? type : MIXED;
+            }
+        }
+        return columnType;
+    }
+
+    private byte[] columnBlock(final byte type, final String columnName, final List<DataSet.DataSetRow> rows)
+            throws IOException {
+        final int rowCount = rows.size();
+        final byte[] present = new byte[bitmapLength(rowCount)];
+        final byte[] nulls = new byte[bitmapLength(rowCount)];
+        final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        final int width = widthOf(type);
+        final int[] offsets = new int[rowCount + 1];
+        for (int i = 0; i < rowCount; i++) {
+            final Map<String, Object> values = rows.get(i).getValues();
+            final Object value = values.get(columnName);
+            if (values.containsKey(columnName)) {
+                present[i >> 3] |= 1 << (i & 7);
+            }
+            if (value == null) {
+                nulls[i >> 3] |= 1 << (i & 7);
+                data.write(new byte[Math.max(width, 0)]);
+            } else if (type == MIXED) {
+                final byte valueType = typeOf(value);
+                data.write(valueType);
+                data.write(encode(valueType, value));
+            } else {
+                data.write(encode(type, value));
+            }
+            offsets[i + 1] = data.size();
+        }
+
+        final ByteArrayOutputStream block = new ByteArrayOutputStream(2 * present.length + data.size()
+                + (width < 0 ? 4 * offsets.length : 0));
+        final DataOutputStream output = new DataOutputStream(block);
+        output.write(present);
+        output.write(nulls);
+        if (width < 0) {
+            for (final int offset : offsets) {
+                output.writeInt(offset);
+            }
+        }
+        data.writeTo(output);
+        output.flush();
+        return block.toByteArray();
+    }
+
+    /**
+     * <p>
+     * Table and column names, each written once and referred to by index.
+     * </p>
+     */
+    private static final class Dictionary {
+
+        private final Map<String, Integer> indexes = new LinkedHashMap<String, Integer>();
+
+        int indexOf(final String name) {
+            Integer index = indexes.get(name);
+            if (index == null) {
+                index = indexes.size();
+                indexes.put(name, index);
+            }
+            return index;
+        }
+
+        void write(final DataOutputStream output) throws IOException {
+            output.writeInt(indexes.size());
+            for (final String name : indexes.keySet()) {
+                final byte[] bytes = name.getBytes(UTF8);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+            }
+        }
+    }
+}
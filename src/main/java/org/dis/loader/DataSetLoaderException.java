@@ -7,6 +7,10 @@ package org.dis.loader;
  */
 class DataSetLoaderException extends RuntimeException {
 
+    DataSetLoaderException(String message) {
+        super(message);
+    }
+
     DataSetLoaderException(String message, Throwable cause) {
         super(message, cause);
     }
@@ -0,0 +1,13 @@
+package org.dis.loader;
+
+import org.dis.DataSet;
+
+/**
+ * <p>
+ * Receives the rows of a data set one at a time, as a streaming loader parses them.
+ * </p>
+ */
+public interface DataSetRowCallback {
+
+    void processRow(DataSet.DataSetRow row);
+}
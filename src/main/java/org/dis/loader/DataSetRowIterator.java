@@ -0,0 +1,124 @@
+package org.dis.loader;
+
+import org.dis.DataSet;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Hands rows from a parsing thread to a consuming thread through a bounded queue.  The parser blocks while the queue
+ * is full, so it never gets more than the queue's capacity ahead of the consumer.  A failure of the parser is
+ * rethrown to the consumer once the rows parsed before it have been consumed.
+ * </p>
+ */
+public final class DataSetRowIterator implements Iterator<DataSet.DataSetRow>, DataSetRowCallback, Closeable {
+
+    // Marks the end of the rows in the queue
+    private static final DataSet.DataSetRow END = new DataSet.DataSetRow();
+
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final String resource;
+
+    private final BlockingQueue<DataSet.DataSetRow> queue;
+
+    private volatile RuntimeException failure;
+
+    private volatile boolean closed;
+
+    private DataSet.DataSetRow next;
+
+    DataSetRowIterator(final String resource, final int capacity) {
+        this.resource = resource;
+        this.queue = new ArrayBlockingQueue<DataSet.DataSetRow>(capacity);
+    }
+
+    /**
+     * Called by the parser for each row, blocking while the queue is full.
+     */
+    public void processRow(final DataSet.DataSetRow row) {
+        put(row);
+    }
+
+    /**
+     * Called by the parser once it has finished, with the failure that stopped it if any.
+     */
+    void finish(final RuntimeException parseFailure) {
+        if (parseFailure instanceof ClosedException) {
+            return;
+        }
+        failure = parseFailure;
+        try {
+            put(END);
+        } catch (ClosedException e) {
+            // nobody is left to read the end
+        }
+    }
+
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DataSetLoaderException("Interrupted while reading resource [" + resource + "].", e);
+            }
+        }
+        if (next == END) {
+            if (failure != null) {
+                throw failure;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    public DataSet.DataSetRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final DataSet.DataSetRow row = next;
+        next = null;
+        return row;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * <p>
+     * Stops the parser, for a consumer that does not read the rows to the end.
+     * </p>
+     */
+    public void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    private void put(final DataSet.DataSetRow row) {
+        try {
+            while (!queue.offer(row, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    throw new ClosedException();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClosedException();
+        }
+    }
+
+    /**
+     * Unwinds the parser once the iterator has been closed.
+     */
+    private static final class ClosedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+    }
+}
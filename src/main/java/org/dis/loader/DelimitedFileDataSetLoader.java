@@ -0,0 +1,213 @@
+package org.dis.loader;
+
+import org.dis.DataSet;
+import org.dis.DatabaseTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * <p>
+ * Loads the rows of a single table from a comma (<code>.csv</code>) or tab (<code>.tsv</code>) separated classpath
+ * resource, optionally gzipped (<code>.csv.gz</code>, <code>.tsv.gz</code>).  The table is named by the resource's
+ * file name, e.g. <code>/data/simple_table.csv</code> holds the rows of <code>simple_table</code>, and the first
+ * line of the resource holds the column names.
+ * </p>
+ * <p>
+ * Fields may be quoted with double quotes, doubling any quote within them, to hold separators and line breaks.  An
+ * empty unquoted field is null, whereas <code>""</code> is an empty string.  Values are loaded as strings and
+ * converted to the type of their column when the data set is resolved, so that no expressions are evaluated.  The
+ * resource is decoded as UTF-8 through a single reused character buffer, one field at a time, without regular
+ * expressions.
+ * </p>
+ */
+public class DelimitedFileDataSetLoader implements DataSetLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(DelimitedFileDataSetLoader.class);
+
+    private static final String GZIP_SUFFIX = ".gz";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int END_OF_INPUT = -1;
+
+    private final String resource;
+
+    public DelimitedFileDataSetLoader(String resource) {
+        this.resource = resource;
+    }
+
+    /**
+     * @return whether the resource is in a format read by this loader, judged by its file name.
+     */
+    public static boolean supports(final String resource) {
+        final String name = uncompressedName(resource).toLowerCase();
+        return name.endsWith(".csv") || name.endsWith(".tsv");
+    }
+
+    public DataSet load() {
+        final String name = uncompressedName(resource);
+        final char separator = name.toLowerCase().endsWith(".tsv") ? '\t' : ',';
+        final DatabaseTable databaseTable = DatabaseTable.parse(tableName(name));
+
+        final DataSet dataSet = new DataSet();
+        InputStream inputStream = null;
+        try {
+            inputStream = new ClassPathResource(resource).getInputStream();
+            if (resource.endsWith(GZIP_SUFFIX)) {
+                inputStream = new GZIPInputStream(inputStream, BUFFER_SIZE);
+            }
+            final FieldReader reader = new FieldReader(new InputStreamReader(inputStream, "UTF-8"), separator);
+            final List<String> columnNames = new ArrayList<String>();
+            if (!reader.readRecord(columnNames)) {
+                return dataSet;
+            }
+            final List<String> fields = new ArrayList<String>(columnNames.size());
+            while (reader.readRecord(fields)) {
+                if (fields.size() != columnNames.size()) {
+                    throw new DataSetLoaderException("Record [" + reader.getRecordNumber() + "] of resource ["
+                            + resource + "] has [" + fields.size() + "] fields, but its header has ["
+                            + columnNames.size() + "] columns.");
+                }
+                final DataSet.DataSetRow row = new DataSet.DataSetRow();
+                row.setDatabaseTable(databaseTable);
+                for (int i = 0; i < fields.size(); i++) {
+                    row.addColumnValue(columnNames.get(i), fields.get(i));
+                }
+                dataSet.addRow(row);
+            }
+        } catch (IOException e) {
+            throw new DataSetLoaderException("Failed to read resource [" + resource + "].", e);
+        } finally {
+            close(inputStream);
+        }
+        return dataSet;
+    }
+
+    private static String uncompressedName(final String resource) {
+        return resource.endsWith(GZIP_SUFFIX) ? resource.substring(0, resource.length() - GZIP_SUFFIX.length())
+                : resource;
+    }
+
+    private static String tableName(final String name) {
+        final int start = name.lastIndexOf('/') + 1;
+        final int end = name.lastIndexOf('.');
+        return name.substring(start, end > start ? end : name.length());
+    }
+
+    private void close(final InputStream inputStream) {
+        try {
+            if (inputStream != null) {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            logger.debug("Failed to close resource [" + resource + "].", e);
+        }
+    }
+
+    /**
+     * <p>
+     * Splits delimited text into records of fields, reading the underlying reader through one buffer.
+     * </p>
+     */
+    private static final class FieldReader {
+
+        private final Reader reader;
+
+        private final char separator;
+
+        private final char[] buffer = new char[BUFFER_SIZE];
+
+        private final StringBuilder field = new StringBuilder();
+
+        private int position;
+
+        private int limit;
+
+        private int recordNumber;
+
+        private FieldReader(final Reader reader, final char separator) {
+            this.reader = reader;
+            this.separator = separator;
+        }
+
+        int getRecordNumber() {
+            return recordNumber;
+        }
+
+        /**
+         * <p>
+         * Reads the next record into the given list, replacing its content.  Blank lines are skipped.
+         * </p>
+         * @return false at the end of the input
+         */
+        boolean readRecord(final List<String> fields) throws IOException {
+            fields.clear();
+            int c = read();
+            while (c == '\r' || c == '\n') {
+                c = read();
+            }
+            if (c == END_OF_INPUT) {
+                return false;
+            }
+            recordNumber++;
+            while (true) {
+                boolean quoted = false;
+                field.setLength(0);
+                if (c == '"') {
+                    quoted = true;
+                    c = readQuoted();
+                }
+                while (c != separator && c != '\r' && c != '\n' && c != END_OF_INPUT) {
+                    field.append((char) c);
+                    c = read();
+                }
+                fields.add(field.length() == 0 && !quoted ? null : field.toString());
+                if (c != separator) {
+                    return true;
+                }
+                c = read();
+            }
+        }
+
+        /**
+         * Reads a quoted field up to its closing quote.
+         * @return the character after the closing quote
+         */
+        private int readQuoted() throws IOException {
+            while (true) {
+                int c = read();
+                if (c == END_OF_INPUT) {
+                    throw new IOException("Unterminated quoted field in record [" + recordNumber + "].");
+                }
+                if (c == '"') {
+                    c = read();
+                    if (c != '"') {
+                        return c;
+                    }
+                }
+                field.append((char) c);
+            }
+        }
+
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return END_OF_INPUT;
+                }
+            }
+            return buffer[position++];
+        }
+    }
+}
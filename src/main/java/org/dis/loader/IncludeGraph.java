@@ -0,0 +1,238 @@
+package org.dis.loader;
+
+import org.dis.DataSet;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Resolves the <code>include</code> elements of a data set resource.  Every resource reachable from the root is
+ * parsed exactly once, the resources discovered at the same include depth in parallel, before any rows are merged.
+ * Cyclic includes are then reported as a {@link DataSetLoaderException} rather than recursing without end.
+ * </p>
+ * <p>
+ * The rows are merged in document order, with the rows of an included resource in place of its first
+ * <code>include</code> element.  A resource included more than once, e.g. by both sides of a diamond, contributes
+ * its rows only once.
+ * </p>
+ */
+final class IncludeGraph {
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    private static volatile ExecutorService executorService;
+
+    private final Parser parser;
+
+    private final Map<String, Document> documents = new HashMap<String, Document>();
+
+    IncludeGraph(final Parser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * @return the resource name under which an included resource is parsed and compared.
+     */
+    static String key(final String resource) {
+        return new ClassPathResource(resource).getPath();
+    }
+
+    /**
+     * @param resource the root resource
+     * @return the rows of the root resource and everything it includes, each resource's rows once
+     */
+    DataSet resolve(final String resource) {
+        final String root = key(resource);
+        parseReachable(root);
+        checkAcyclic(root, new LinkedHashSet<String>(), new HashSet<String>());
+
+        final DataSet dataSet = new DataSet();
+        merge(root, dataSet, new HashSet<String>());
+        return dataSet;
+    }
+
+    private void parseReachable(final String root) {
+        List<String> frontier = Collections.singletonList(root);
+        while (!frontier.isEmpty()) {
+            final List<Document> parsed = parse(frontier);
+            final Set<String> next = new LinkedHashSet<String>();
+            for (final Document document : parsed) {
+                documents.put(document.getResource(), document);
+            }
+            for (final Document document : parsed) {
+                for (final Include include : document.getIncludes()) {
+                    if (!documents.containsKey(include.getResource())) {
+                        next.add(include.getResource());
+                    }
+                }
+            }
+            frontier = new ArrayList<String>(next);
+        }
+    }
+
+    private List<Document> parse(final List<String> resources) {
+        final List<Document> parsed = new ArrayList<Document>(resources.size());
+        if (resources.size() == 1) {
+            parsed.add(parser.parse(resources.get(0)));
+            return parsed;
+        }
+        final List<Future<Document>> futures = new ArrayList<Future<Document>>(resources.size());
+        for (final String resource : resources) {
+            futures.add(getExecutorService().submit(new Callable<Document>() {
+                public Document call() {
+                    return parser.parse(resource);
+                }
+            }));
+        }
+        RuntimeException failure = null;
+        for (final Future<Document> future : futures) {
+            try {
+                parsed.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DataSetLoaderException("Interrupted while parsing included resources " + resources + ".", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                            : new DataSetLoaderException("Failed to parse included resources " + resources + ".",
+                            e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return parsed;
+    }
+
+    private void checkAcyclic(final String resource, final LinkedHashSet<String> path, final Set<String> checked) {
+        if (path.contains(resource)) {
+            final List<String> cycle = new ArrayList<String>(path);
+            cycle.add(resource);
+            throw new DataSetLoaderException("Cyclic include of resource [" + resource + "] through " + cycle + ".");
+        }
+        if (!checked.add(resource)) {
+            return;
+        }
+        path.add(resource);
+        for (final Include include : documents.get(resource).getIncludes()) {
+            checkAcyclic(include.getResource(), path, checked);
+        }
+        path.remove(resource);
+    }
+
+    private void merge(final String resource, final DataSet dataSet, final Set<String> merged) {
+        if (!merged.add(resource)) {
+            return;
+        }
+        dataSet.addResource(resource);
+        final Document document = documents.get(resource);
+        final List<DataSet.DataSetRow> rows = document.getRows();
+        int position = 0;
+        for (final Include include : document.getIncludes()) {
+            for (; position < include.getPosition(); position++) {
+                dataSet.addRow(rows.get(position));
+            }
+            merge(include.getResource(), dataSet, merged);
+        }
+        for (; position < rows.size(); position++) {
+            dataSet.addRow(rows.get(position));
+        }
+    }
+
+    private static ExecutorService getExecutorService() {
+        if (executorService == null) {
+            synchronized (IncludeGraph.class) {
+                if (executorService == null) {
+                    executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                            new ThreadFactory() {
+                                public Thread newThread(final Runnable runnable) {
+                                    final Thread thread = new Thread(runnable,
+                                            "dis-include-parser-" + threadCount.incrementAndGet());
+                                    thread.setDaemon(true);
+                                    return thread;
+                                }
+                            });
+                }
+            }
+        }
+        return executorService;
+    }
+
+    /**
+     * <p>
+     * Parses a single resource, recording its <code>include</code> elements rather than following them.
+     * </p>
+     */
+    interface Parser {
+
+        Document parse(String resource);
+    }
+
+    /**
+     * <p>
+     * The rows of a single resource, and the resources it includes at their position between the rows.
+     * </p>
+     */
+    static final class Document {
+
+        private final String resource;
+
+        private final List<DataSet.DataSetRow> rows = new ArrayList<DataSet.DataSetRow>();
+
+        private final List<Include> includes = new ArrayList<Include>();
+
+        Document(final String resource) {
+            this.resource = resource;
+        }
+
+        void addRow(final DataSet.DataSetRow row) {
+            rows.add(row);
+        }
+
+        void addInclude(final String includedResource) {
+            includes.add(new Include(key(includedResource), rows.size()));
+        }
+
+        String getResource() {
+            return resource;
+        }
+
+        List<DataSet.DataSetRow> getRows() {
+            return rows;
+        }
+
+        List<Include> getIncludes() {
+            return includes;
+        }
+    }
+
+    private static final class Include {
+
+        private final String resource;
+
+        // the number of rows of the including resource preceding the include
+        private final int position;
+
+        private Include(final String resource, final int position) {
+            this.resource = resource;
+            this.position = position;
+        }
+
+        String getResource() {
+            return resource;
+        }
+
+        int getPosition() {
+            return position;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.dis.loader;
+
+import org.dis.DataSet;
+import org.dis.DatabaseTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>
+ * Loads a data set from a classpath resource with a StAX pull parser, handing each row to a callback as soon as it
+ * has been parsed rather than building the whole <code>DataSet</code> first.  The resource has the same format as
+ * for the {@link XMLFileDataSetLoader}, including <code>include</code> elements, whose rows are streamed in place.
+ * As for the {@link IncludeGraph}, a resource included more than once is only streamed the first time, and cyclic
+ * includes fail.
+ * </p>
+ * <p>
+ * {@link #iterator(int)} parses on a background thread, so that parsing overlaps with whatever consumes the rows, e.g.
+ * {@link org.dis.DatabaseTableService#insertDataSet(java.util.Iterator, int)}.  Memory use is then bounded by the
+ * capacity of the iterator and the batches of its consumer, rather than by the size of the resource.
+ * </p>
+ */
+public class StreamingXMLDataSetLoader implements DataSetLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingXMLDataSetLoader.class);
+
+    private static final String DATASET_ELEMENT = "dataset";
+    private static final String INCLUDE_ELEMENT = "include";
+
+    private static final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+
+    private final String resource;
+
+    public StreamingXMLDataSetLoader(String resource) {
+        this.resource = resource;
+    }
+
+    /**
+     * @return every row of the resource in a <code>DataSet</code>, for callers that need it in memory.
+     */
+    public DataSet load() {
+        final DataSet dataSet = new DataSet();
+        final Set<String> loaded = new LinkedHashSet<String>();
+        load(new DataSetRowCallback() {
+            public void processRow(final DataSet.DataSetRow row) {
+                dataSet.addRow(row);
+            }
+        }, new LinkedHashSet<String>(), loaded);
+        for (final String loadedResource : loaded) {
+            dataSet.addResource(loadedResource);
+        }
+        return dataSet;
+    }
+
+    /**
+     * <p>
+     * Parses the resource on the calling thread, handing each row to the callback in document order.
+     * </p>
+     */
+    public void load(final DataSetRowCallback callback) {
+        load(callback, new LinkedHashSet<String>(), new HashSet<String>());
+    }
+
+    private void load(final DataSetRowCallback callback, final LinkedHashSet<String> path, final Set<String> loaded) {
+        final String key = IncludeGraph.key(resource);
+        if (path.contains(key)) {
+            final List<String> cycle = new ArrayList<String>(path);
+            cycle.add(key);
+            throw new DataSetLoaderException("Cyclic include of resource [" + key + "] through " + cycle + ".");
+        }
+        if (!loaded.add(key)) {
+            return;
+        }
+        path.add(key);
+        InputStream inputStream = null;
+        XMLStreamReader reader = null;
+        try {
+            inputStream = new ClassPathResource(resource).getInputStream();
+            reader = inputFactory.createXMLStreamReader(inputStream);
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    final String elementName = reader.getLocalName();
+                    if (INCLUDE_ELEMENT.equals(elementName)) {
+                        new StreamingXMLDataSetLoader(reader.getAttributeValue(null, "resource"))
+                                .load(callback, path, loaded);
+                    } else if (!DATASET_ELEMENT.equals(elementName)) {
+                        final DataSet.DataSetRow row = new DataSet.DataSetRow();
+                        row.setDatabaseTable(DatabaseTable.parse(elementName));
+                        for (int i = 0; i < reader.getAttributeCount(); i++) {
+                            row.addColumnValue(reader.getAttributeLocalName(i),
+                                    AttributeValues.evaluate(reader.getAttributeValue(i)));
+                        }
+                        callback.processRow(row);
+                    }
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new DataSetLoaderException("Failed to parse resource[" + resource + "] correctly.", e);
+        } catch (IOException e) {
+            throw new DataSetLoaderException("Failed to load input stream for resource [" + resource + "].", e);
+        } finally {
+            close(reader, inputStream);
+        }
+        path.remove(key);
+    }
+
+    /**
+     * <p>
+     * Starts parsing the resource on a background thread, and returns the rows through an iterator as they are
+     * parsed.  At most <code>capacity</code> parsed rows wait to be consumed.  The iterator must be closed if it is
+     * not consumed to the end.
+     * </p>
+     * @param capacity the number of parsed rows to buffer ahead of the consumer
+     * @return the rows of the resource, in document order
+     */
+    public DataSetRowIterator iterator(final int capacity) {
+        final DataSetRowIterator iterator = new DataSetRowIterator(resource, capacity);
+        final Thread parser = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    load(iterator);
+                    iterator.finish(null);
+                } catch (RuntimeException e) {
+                    iterator.finish(e);
+                }
+            }
+        }, "dis-parser-" + resource);
+        parser.setDaemon(true);
+        parser.start();
+        return iterator;
+    }
+
+    private void close(final XMLStreamReader reader, final InputStream inputStream) {
+        try {
+            if (reader != null) {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            logger.debug("Failed to close the reader of resource [" + resource + "].", e);
+        }
+        try {
+            if (inputStream != null) {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            logger.debug("Failed to close resource [" + resource + "].", e);
+        }
+    }
+}
@@ -3,8 +3,6 @@ package org.dis.loader;
 import org.dis.DataSet;
 import org.dis.DatabaseTable;
 import org.springframework.core.io.ClassPathResource;
-import org.springframework.expression.spel.standard.SpelExpression;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
@@ -16,38 +14,55 @@ import java.io.IOException;
 
 /**
  * <p>
- * Loads data set from a classpath resource.
+ * Loads data set from a classpath resource.  The <code>include</code> elements of the resource are resolved through
+ * an {@link IncludeGraph}, so that each included resource is parsed once, and independent includes in parallel.
  * </p>
  */
 public class XMLFileDataSetLoader implements DataSetLoader {
 
-    private final SAXParser saxParser;
+    private static final SAXParserFactory saxParserFactory = SAXParserFactory.newInstance();
+
+    private static final IncludeGraph.Parser documentParser = new IncludeGraph.Parser() {
+        public IncludeGraph.Document parse(final String resource) {
+            return parseDocument(resource);
+        }
+    };
 
     private String resource;
 
     public XMLFileDataSetLoader(String resource) {
-        try {
-            this.resource = resource;
-            saxParser = SAXParserFactory.newInstance().newSAXParser();
-        } catch (ParserConfigurationException e) {
-            throw new DataSetLoaderException("Failed to get a new SAX parser", e);
-        } catch (SAXException e) {
-            throw new DataSetLoaderException("Failed to get a new SAX parser", e);
-        }
+        this.resource = resource;
     }
 
     public DataSet load() {
+        return new IncludeGraph(documentParser).resolve(resource);
+    }
+
+    private static IncludeGraph.Document parseDocument(final String resource) {
         final ClassPathResource classPathResource = new ClassPathResource(resource);
 
-        final DataSetHandler handler = new DataSetHandler();
+        final DataSetHandler handler = new DataSetHandler(new IncludeGraph.Document(resource));
         try {
-            saxParser.parse(classPathResource.getInputStream(), handler);
+            newSAXParser().parse(classPathResource.getInputStream(), handler);
         } catch (SAXException e) {
             throw new DataSetLoaderException("Failed to parse resource[" + resource + "] correctly.", e);
         } catch (IOException e) {
             throw new DataSetLoaderException("Failed to load input stream for resource [" + resource + "].", e);
         }
-        return handler.getDataSet();
+        return handler.getDocument();
+    }
+
+    private static SAXParser newSAXParser() {
+        try {
+            // parsers are not thread safe, and neither is their factory
+            synchronized (saxParserFactory) {
+                return saxParserFactory.newSAXParser();
+            }
+        } catch (ParserConfigurationException e) {
+            throw new DataSetLoaderException("Failed to get a new SAX parser", e);
+        } catch (SAXException e) {
+            throw new DataSetLoaderException("Failed to get a new SAX parser", e);
+        }
     }
 
     private static final class DataSetHandler extends DefaultHandler {
@@ -55,37 +70,29 @@ public class XMLFileDataSetLoader implements DataSetLoader {
         private static final String DATASET_ELEMENT = "dataset";
         private static final String INCLUDE_ELEMENT = "include";
 
-        private DataSet dataSet;
+        private final IncludeGraph.Document document;
 
-        private SpelExpressionParser parser;
-
-        public DataSet getDataSet() {
-            return dataSet;
+        private DataSetHandler(final IncludeGraph.Document document) {
+            this.document = document;
         }
 
-        @Override
-        public void startDocument() {
-            dataSet = new DataSet();
-            parser = new SpelExpressionParser();
+        public IncludeGraph.Document getDocument() {
+            return document;
         }
 
         @Override
         public void startElement(final String uri, final String localName, final String qName, final Attributes attributes) {
             if (INCLUDE_ELEMENT.equals(qName)) {
-                String resourceName = attributes.getValue("resource");
-                DataSetLoader loader = new XMLFileDataSetLoader(resourceName);
-                DataSet included = loader.load();
-                dataSet.addRows(included.getRows());
+                document.addInclude(attributes.getValue("resource"));
             } else if (!DATASET_ELEMENT.equals(qName)) {
                 final DataSet.DataSetRow row = new DataSet.DataSetRow();
                 row.setDatabaseTable(DatabaseTable.parse(qName));
                 for (int i = 0; i < attributes.getLength(); i++) {
                     final String columnName = attributes.getLocalName(i);
                     final String columnValue = attributes.getValue(i);
-                    SpelExpression expr = parser.parseRaw(columnValue);                    
-                    row.addColumnValue(columnName, expr.getValue());
+                    row.addColumnValue(columnName, AttributeValues.evaluate(columnValue));
                 }
-                dataSet.addRow(row);
+                document.addRow(row);
             }
         }
     }
@@ -0,0 +1,84 @@
+package org.dis;
+
+import org.dis.loader.XMLFileDataSetLoader;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class DataSetCacheTest {
+
+    private static final String SINGLE_ROW = "/org/dis/single-table.xml";
+
+    private static final String THREE_ROWS = "/org/dis/multi-row.xml";
+
+    private static final String DIAMOND = "/org/dis/include/diamond.xml";
+
+    private static final String BASE = "/org/dis/include/base.xml";
+
+    @Test
+    public void cachesFrozenDataSetPerResource() {
+        final DataSetCache cache = new DataSetCache(10);
+        final DataSet dataSet = cache.get(SINGLE_ROW, loader(SINGLE_ROW));
+
+        assertThat(dataSet.isFrozen(), equalTo(true));
+        assertThat(cache.get(SINGLE_ROW, loader(SINGLE_ROW)), sameInstance(dataSet));
+        assertThat(new DataSetCache(10).get(SINGLE_ROW, loader(SINGLE_ROW)), not(sameInstance(dataSet)));
+        assertThat(cache.getHits(), equalTo(1L));
+        assertThat(cache.getMisses(), equalTo(1L));
+    }
+
+    @Test
+    public void loadsDataSetAgainWhenAnIncludedResourceIsModified() throws IOException {
+        final DataSetCache cache = new DataSetCache(10);
+        final DataSet dataSet = cache.get(DIAMOND, loader(DIAMOND));
+        assertThat(cache.get(DIAMOND, loader(DIAMOND)), sameInstance(dataSet));
+
+        final File base = new ClassPathResource(BASE).getFile();
+        final long lastModified = base.lastModified();
+        try {
+            assertThat(base.setLastModified(lastModified + 2000), equalTo(true));
+            final DataSet reloaded = cache.get(DIAMOND, loader(DIAMOND));
+            assertThat(reloaded, not(sameInstance(dataSet)));
+            assertThat(cache.get(DIAMOND, loader(DIAMOND)), sameInstance(reloaded));
+            assertThat(cache.size(), equalTo(1));
+            assertThat(cache.getRows(), equalTo((long) reloaded.size()));
+        } finally {
+            base.setLastModified(lastModified);
+        }
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedDataSetsBeyondMaxRows() {
+        final DataSetCache cache = new DataSetCache(4);
+        cache.get(SINGLE_ROW, loader(SINGLE_ROW));
+        cache.get(THREE_ROWS, loader(THREE_ROWS));
+        assertThat(cache.getRows(), equalTo(4L));
+
+        cache.get(DIAMOND, loader(DIAMOND));
+
+        assertThat(cache.size(), equalTo(1));
+        assertThat(cache.getRows(), equalTo(4L));
+        assertThat(cache.getEvictions(), equalTo(2L));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsChangesToFrozenRows() {
+        final DataSet dataSet = new DataSetCache(10).get(SINGLE_ROW, loader(SINGLE_ROW));
+        dataSet.getRows().get(0).addColumnValue("description", "changed");
+    }
+
+    private static DataSetCache.Loader loader(final String resource) {
+        return new DataSetCache.Loader() {
+            public DataSet load() {
+                return new XMLFileDataSetLoader(resource).load();
+            }
+        };
+    }
+}
@@ -0,0 +1,236 @@
+package org.dis;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class DatabaseTableServiceImplTest {
+
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+
+    // Child table names by parent table name, as returned by loadChildTableReferences
+    private final Map<String, List<String>> childTableNames = new HashMap<String, List<String>>();
+
+    private DatabaseTableServiceImpl databaseTableService;
+
+    private DatabaseTable parent;
+    private DatabaseTable left;
+    private DatabaseTable right;
+    private DatabaseTable shared;
+
+    @Before
+    public void setUp() {
+        databaseTableService = new DatabaseTableServiceImpl();
+        databaseTableService.setDatabaseTableDao(recordingDao());
+
+        // parent -> left -> shared, parent -> right -> shared
+        parent = table("parent");
+        left = table("left");
+        right = table("right");
+        shared = table("shared");
+        link(parent, left);
+        link(parent, right);
+        link(left, shared);
+        link(right, shared);
+    }
+
+    @Test
+    public void deletesEachTableOnceChildrenFirst() {
+        databaseTableService.deleteTables(Arrays.asList(parent, shared));
+        assertThat(calls, equalTo(Arrays.asList(
+                "deleteTable SHARED", "deleteTable LEFT", "deleteTable RIGHT", "deleteTable PARENT")));
+    }
+
+    @Test
+    public void cachesDeletePlanPerSetOfTables() {
+        final List<DatabaseTable> plan = databaseTableService.deletePlan(Arrays.asList(parent, shared));
+        assertThat(databaseTableService.deletePlan(Arrays.asList(shared, parent)), sameInstance(plan));
+    }
+
+    @Test
+    public void flashesBackConnectedTablesTogether() {
+        databaseTableService.flashbackTables(Arrays.asList(left), 42L);
+        assertThat(calls, equalTo(Arrays.asList("flashbackTables")));
+
+        final StringBuilder builder = new StringBuilder();
+        databaseTableService.logFlashbackTables(Arrays.asList(left), 42L, builder);
+        assertThat(builder.toString().contains("\nflashback table PARENT, LEFT, RIGHT, SHARED to scn 42;\n"),
+                equalTo(true));
+    }
+
+    @Test
+    public void resolvesCyclicAndSelfReferencingConstraints() {
+        childTableNames.put("FIRST", Arrays.asList("SECOND"));
+        childTableNames.put("SECOND", Arrays.asList("FIRST", "SECOND"));
+
+        final DatabaseTable first = databaseTableService.loadDatabaseTableStructure("first");
+        final DatabaseTable second = first.getChildConstraints().get(0).getChildTable();
+
+        assertThat(second.getChildConstraints().get(0).getChildTable(), sameInstance(first));
+        assertThat(second.getChildConstraints().get(1).getChildTable(), sameInstance(second));
+        assertThat(databaseTableService.loadDatabaseTableStructure("second"), sameInstance(second));
+        assertThat(Collections.frequency(calls, "loadDatabaseTable FIRST"), equalTo(1));
+        assertThat(Collections.frequency(calls, "loadDatabaseTable SECOND"), equalTo(1));
+    }
+
+    @Test
+    public void sharesConcurrentLoadsOfTheSameTable() throws InterruptedException {
+        final DatabaseTable[] loaded = new DatabaseTable[4];
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < loaded.length; i++) {
+            final int index = i;
+            threads.add(new Thread(new Runnable() {
+                public void run() {
+                    loaded[index] = databaseTableService.loadDatabaseTableStructure("first");
+                }
+            }));
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        for (final DatabaseTable table : loaded) {
+            assertThat(table, sameInstance(loaded[0]));
+        }
+        assertThat(Collections.frequency(calls, "loadDatabaseTable FIRST"), equalTo(1));
+    }
+
+    @Test
+    public void resolvesChildConstraintsAndTriggersOnFirstUseWhenLazy() {
+        databaseTableService.setLazyIntrospection(true);
+        childTableNames.put("FIRST", Arrays.asList("SECOND"));
+        childTableNames.put("SECOND", Arrays.asList("THIRD"));
+
+        final DatabaseTable first = databaseTableService.loadDatabaseTableStructure("first");
+        assertThat(calls, equalTo(Arrays.asList("loadDatabaseTable FIRST", "loadColumns FIRST")));
+
+        final DatabaseTable second = first.getChildConstraints().get(0).getChildTable();
+        assertThat(second.getParentConstraints().get(0).getParentTable(), sameInstance(first));
+        assertThat(databaseTableService.loadDatabaseTableStructure("second"), sameInstance(second));
+        assertThat(calls.contains("loadChildTableReferences SECOND"), equalTo(false));
+        assertThat(calls.contains("getTriggersForTable FIRST"), equalTo(false));
+
+        first.getChildConstraints();
+        first.getDatabaseTriggers();
+        first.getDatabaseTriggers();
+        assertThat(Collections.frequency(calls, "loadChildTableReferences FIRST"), equalTo(1));
+        assertThat(Collections.frequency(calls, "getTriggersForTable FIRST"), equalTo(1));
+    }
+
+    @Test
+    public void flashesBackParentsOfLazilyLoadedTables() {
+        databaseTableService.setLazyIntrospection(true);
+        childTableNames.put("FIRST", Arrays.asList("SECOND"));
+        childTableNames.put("SECOND", Arrays.asList("THIRD"));
+
+        final DatabaseTable third = databaseTableService.loadDatabaseTableStructure("third");
+        final StringBuilder builder = new StringBuilder();
+        databaseTableService.logFlashbackTables(Arrays.asList(third), 42L, builder);
+        assertThat(builder.toString().contains("flashback table FIRST, SECOND, THIRD to scn 42;"), equalTo(true));
+        assertThat(Collections.frequency(calls, "loadParentTables THIRD"), equalTo(1));
+    }
+
+    @Test
+    public void resolvesSharedTablesThroughALiveServiceOnceTheLoadingServiceIsDestroyed() {
+        final List<String> otherCalls = Collections.synchronizedList(new ArrayList<String>());
+        final DatabaseTableServiceImpl otherService = new DatabaseTableServiceImpl();
+        otherService.setDatabaseTableDao(recordingDao(otherCalls));
+        final SchemaMetadataCache schemaMetadataCache = new SchemaMetadataCache();
+        databaseTableService.setSchemaMetadataCache(schemaMetadataCache);
+        otherService.setSchemaMetadataCache(schemaMetadataCache);
+        databaseTableService.setLazyIntrospection(true);
+        otherService.setLazyIntrospection(true);
+        childTableNames.put("FIRST", Arrays.asList("SECOND"));
+
+        final DatabaseTable first = databaseTableService.loadDatabaseTableStructure("first");
+        databaseTableService.destroy();
+        first.getChildConstraints();
+
+        assertThat(calls.contains("loadChildTableReferences FIRST"), equalTo(false));
+        assertThat(otherCalls.contains("loadChildTableReferences FIRST"), equalTo(true));
+        assertThat(otherService.loadDatabaseTableStructure("second"),
+                sameInstance(first.getChildConstraints().get(0).getChildTable()));
+    }
+
+    private DatabaseTableDao recordingDao() {
+        return recordingDao(calls);
+    }
+
+    private DatabaseTableDao recordingDao(final List<String> calls) {
+        return (DatabaseTableDao) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{DatabaseTableDao.class}, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        final StringBuilder call = new StringBuilder(method.getName());
+                        if (args != null && args.length > 0 && args[0] instanceof DatabaseTable) {
+                            call.append(' ').append(((DatabaseTable) args[0]).qualifiedName());
+                        }
+                        calls.add(call.toString());
+                        if ("loadDatabaseTable".equals(method.getName())) {
+                            return args[0];
+                        } else if ("loadChildTableReferences".equals(method.getName())) {
+                            return childReferences((DatabaseTable) args[0]);
+                        } else if ("loadParentTables".equals(method.getName())) {
+                            return parentTables((DatabaseTable) args[0]);
+                        } else if (List.class.equals(method.getReturnType())) {
+                            return new ArrayList<Object>();
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private List<DatabaseReferentialConstraint> childReferences(final DatabaseTable parentTable) {
+        final List<DatabaseReferentialConstraint> constraints = new ArrayList<DatabaseReferentialConstraint>();
+        final List<String> tableNames = childTableNames.get(parentTable.getTableName());
+        if (tableNames != null) {
+            for (final String tableName : tableNames) {
+                final DatabaseReferentialConstraint constraint = new DatabaseReferentialConstraint();
+                constraint.setConstraintName(tableName + "_FK");
+                constraint.setChildTable(table(tableName));
+                constraints.add(constraint);
+            }
+        }
+        return constraints;
+    }
+
+    private List<DatabaseTable> parentTables(final DatabaseTable childTable) {
+        final List<DatabaseTable> parentTables = new ArrayList<DatabaseTable>();
+        for (final Map.Entry<String, List<String>> entry : childTableNames.entrySet()) {
+            if (entry.getValue().contains(childTable.getTableName())) {
+                parentTables.add(table(entry.getKey()));
+            }
+        }
+        return parentTables;
+    }
+
+    private static DatabaseTable table(final String tableName) {
+        final DatabaseTable table = new DatabaseTable();
+        table.setTableName(tableName);
+        return table;
+    }
+
+    private static void link(final DatabaseTable parentTable, final DatabaseTable childTable) {
+        final DatabaseReferentialConstraint constraint = new DatabaseReferentialConstraint();
+        constraint.setConstraintName(childTable.getTableName() + "_FK");
+        constraint.setParentTable(parentTable);
+        constraint.setChildTable(childTable);
+        parentTable.getChildConstraints().add(constraint);
+        childTable.addParentConstraint(constraint);
+    }
+}
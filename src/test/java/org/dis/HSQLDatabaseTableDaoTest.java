@@ -0,0 +1,54 @@
+package org.dis;
+
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class HSQLDatabaseTableDaoTest {
+
+    /**
+     * Should HSQLDB stop undoing the last change before a savepoint, savepoints become reliable and this fails.
+     */
+    @Test
+    public void rollingBackToSavepointAlsoUndoesTheLastChangeBeforeIt() throws SQLException {
+        final Connection connection = DriverManager.getConnection("jdbc:hsqldb:mem:savepoints", "sa", "");
+        try {
+            final Statement statement = connection.createStatement();
+            statement.execute("create table savepoint_table (id integer primary key)");
+            connection.setAutoCommit(false);
+            statement.execute("insert into savepoint_table values (1)");
+            statement.execute("insert into savepoint_table values (2)");
+            statement.execute("insert into savepoint_table values (3)");
+            final Savepoint savepoint = connection.setSavepoint("SEEDED");
+            statement.execute("delete from savepoint_table");
+
+            connection.rollback(savepoint);
+
+            assertThat(ids(statement), equalTo(Arrays.asList(1, 2)));
+            assertThat(new HSQLDatabaseTableDao(null).isSavepointReliable(), equalTo(false));
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static List<Integer> ids(final Statement statement) throws SQLException {
+        final ResultSet resultSet = statement.executeQuery("select id from savepoint_table order by id");
+        final List<Integer> ids = new ArrayList<Integer>();
+        while (resultSet.next()) {
+            ids.add(resultSet.getInt(1));
+        }
+        resultSet.close();
+        return ids;
+    }
+}
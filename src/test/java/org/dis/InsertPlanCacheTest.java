@@ -0,0 +1,60 @@
+package org.dis;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class InsertPlanCacheTest {
+
+    private final InsertPlanCache.InsertPlanFactory factory = new InsertPlanCache.InsertPlanFactory() {
+        public InsertPlan createInsertPlan(final DatabaseTable table, final List<String> columns) {
+            return new InsertPlan(columns, "insert into " + table.getTableName() + " " + columns + " values (?, ?)",
+                    new int[columns.size()]);
+        }
+    };
+
+    @Test
+    public void cachesPlanPerTableAndColumnSet() {
+        final InsertPlanCache cache = new InsertPlanCache(10);
+        final InsertPlan plan = cache.get("db", table("first"), Arrays.asList("A", "B"), factory);
+
+        assertThat(cache.get("db", table("first"), Arrays.asList("A", "B"), factory), sameInstance(plan));
+        assertThat(cache.get("db", table("first"), Arrays.asList("A", "C"), factory), not(sameInstance(plan)));
+        assertThat(cache.get("other", table("first"), Arrays.asList("A", "B"), factory), not(sameInstance(plan)));
+        assertThat(cache.getHits(), equalTo(1L));
+        assertThat(cache.getMisses(), equalTo(3L));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedPlan() {
+        final InsertPlanCache cache = new InsertPlanCache(2);
+        final InsertPlan first = cache.get("db", table("first"), Arrays.asList("A"), factory);
+        cache.get("db", table("second"), Arrays.asList("A"), factory);
+        cache.get("db", table("first"), Arrays.asList("A"), factory);
+        cache.get("db", table("third"), Arrays.asList("A"), factory);
+
+        assertThat(cache.size(), equalTo(2));
+        assertThat(cache.getEvictions(), equalTo(1L));
+        assertThat(cache.get("db", table("first"), Arrays.asList("A"), factory), sameInstance(first));
+    }
+
+    @Test
+    public void rendersMultiRowStatementsOncePerRowCount() {
+        final InsertPlan plan = new InsertPlan(Arrays.asList("A", "B"), "insert into t (A, B) values (?, ?)", new int[2]);
+
+        assertThat(plan.getMultiRowSql(3), equalTo("insert into t (A, B) values (?, ?), (?, ?), (?, ?)"));
+        assertThat(plan.getMultiRowSql(3), sameInstance(plan.getMultiRowSql(3)));
+    }
+
+    private static DatabaseTable table(final String tableName) {
+        final DatabaseTable table = new DatabaseTable();
+        table.setTableName(tableName);
+        return table;
+    }
+}
@@ -0,0 +1,63 @@
+package org.dis;
+
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class OracleDatabaseTableDaoTest {
+
+    private final List<String> statements = new ArrayList<String>();
+
+    private final OracleDatabaseTableDao dao = new OracleDatabaseTableDao("test_owner");
+
+    @Test
+    public void enablesRowMovementOnceAndDisablesItOnDestroy() {
+        dao.setJdbcTemplate(new JdbcTemplate() {
+            @Override
+            public void execute(final String sql) {
+                statements.add(sql);
+            }
+        });
+        final List<DatabaseTable> tables =
+                Arrays.asList(new DatabaseTable("parent_table"), new DatabaseTable("child_table"));
+
+        dao.flashbackTables(tables, 42L);
+        dao.flashbackTables(tables, 43L);
+        dao.destroy();
+        dao.destroy();
+
+        assertThat(statements.subList(0, 4), equalTo(Arrays.asList(
+                "alter table PARENT_TABLE enable row movement",
+                "alter table CHILD_TABLE enable row movement",
+                "flashback table PARENT_TABLE, CHILD_TABLE to scn 42",
+                "flashback table PARENT_TABLE, CHILD_TABLE to scn 43")));
+        final List<String> disabled = new ArrayList<String>(statements.subList(4, statements.size()));
+        Collections.sort(disabled);
+        assertThat(disabled, equalTo(Arrays.asList(
+                "alter table CHILD_TABLE disable row movement",
+                "alter table PARENT_TABLE disable row movement")));
+    }
+
+    @Test
+    public void namesModificationTriggersUniquelyWithinIdentifierLength() {
+        final String first = dao.modificationTriggerName(new DatabaseTable("customer_order_line_items_history"));
+        final String second = dao.modificationTriggerName(new DatabaseTable("customer_order_line_items_archive"));
+        final String otherOwner = dao.modificationTriggerName(
+                new DatabaseTable("other_owner", "customer_order_line_items_history"));
+
+        assertThat(first.length(), equalTo(30));
+        assertThat(first.startsWith("DIS_MOD_"), equalTo(true));
+        assertThat(second, not(equalTo(first)));
+        assertThat(otherOwner, not(equalTo(first)));
+        assertThat(dao.modificationTriggerName(new DatabaseTable("test_owner", "customer_order_line_items_history")),
+                equalTo(first));
+    }
+}
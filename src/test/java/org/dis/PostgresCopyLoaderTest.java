@@ -0,0 +1,107 @@
+package org.dis;
+
+import org.junit.Test;
+import org.postgresql.copy.CopyIn;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class PostgresCopyLoaderTest {
+
+    private final DatabaseTable table = new DatabaseTable("simple_table");
+
+    private final List<String> columns = Arrays.asList("description", "id", "created");
+
+    @Test
+    public void rendersCopySql() {
+        assertThat(PostgresCopyLoader.copySql(table, columns),
+                equalTo("copy SIMPLE_TABLE (description, id, created) from stdin"));
+    }
+
+    @Test
+    public void encodesRowsInTextFormat() throws SQLException {
+        final RecordingCopyIn copyIn = new RecordingCopyIn();
+        final List<DataSet.DataSetRow> rows = Arrays.asList(
+                row("tab\there", 1, Timestamp.valueOf("2011-01-02 03:04:05.0")),
+                row("back\\slash\nnewline", new BigDecimal("2.50"), null));
+
+        PostgresCopyLoader.copy(copyIn, columns, rows);
+
+        assertThat(copyIn.written(), equalTo(
+                "tab\\there\t1\t2011-01-02 03:04:05.0\n" +
+                "back\\\\slash\\nnewline\t2.50\t\\N\n"));
+        assertThat(copyIn.ended, equalTo(true));
+    }
+
+    @Test
+    public void refusesValuesThatCannotBeEncoded() {
+        final List<DataSet.DataSetRow> rows = Arrays.asList(row("bytes", 1, new byte[]{1, 2}));
+        assertThat(PostgresCopyLoader.canEncode(columns, rows), equalTo(false));
+    }
+
+    private DataSet.DataSetRow row(final Object description, final Object id, final Object created) {
+        final DataSet.DataSetRow row = new DataSet.DataSetRow();
+        row.setDatabaseTable(table);
+        row.addColumnValue("description", description);
+        row.addColumnValue("id", id);
+        row.addColumnValue("created", created);
+        return row;
+    }
+
+    private static final class RecordingCopyIn implements CopyIn {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        private boolean ended;
+
+        String written() {
+            try {
+                return bytes.toString("UTF-8");
+            } catch (java.io.UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        public void writeToCopy(byte[] buf, int off, int siz) {
+            bytes.write(buf, off, siz);
+        }
+
+        public void flushCopy() {
+        }
+
+        public long endCopy() {
+            ended = true;
+            return 2;
+        }
+
+        public int getFieldCount() {
+            return 3;
+        }
+
+        public int getFormat() {
+            return 0;
+        }
+
+        public int getFieldFormat(int field) {
+            return 0;
+        }
+
+        public boolean isActive() {
+            return !ended;
+        }
+
+        public void cancelCopy() {
+        }
+
+        public long getHandledRowCount() {
+            return 0;
+        }
+    }
+}
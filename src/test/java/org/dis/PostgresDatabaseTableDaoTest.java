@@ -0,0 +1,32 @@
+package org.dis;
+
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class PostgresDatabaseTableDaoTest {
+
+    private final List<String> statements = new ArrayList<String>();
+
+    @Test
+    public void truncatesAllTablesInOneStatement() {
+        final PostgresDatabaseTableDao dao = new PostgresDatabaseTableDao("public");
+        dao.setJdbcTemplate(new JdbcTemplate() {
+            @Override
+            public void execute(final String sql) {
+                statements.add(sql);
+            }
+        });
+
+        dao.truncateTables(Arrays.asList(new DatabaseTable("child_table"), new DatabaseTable("parent_table")));
+
+        assertThat(statements, equalTo(Arrays.asList(
+                "truncate table CHILD_TABLE, PARENT_TABLE restart identity cascade")));
+    }
+}
@@ -0,0 +1,65 @@
+package org.dis;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SchemaGraphIndexTest {
+
+    @Test
+    public void ranksParentsBeforeChildren() {
+        // root -> middle -> leaf, root -> leaf
+        final DatabaseTable root = new DatabaseTable("root");
+        final DatabaseTable middle = new DatabaseTable("middle");
+        final DatabaseTable leaf = new DatabaseTable("leaf");
+        link(root, middle);
+        link(middle, leaf);
+        link(root, leaf);
+
+        final SchemaGraphIndex index = SchemaGraphIndex.build(Collections.singleton(root));
+
+        assertThat(index.size(), equalTo(3));
+        assertThat(index.getRank(root), equalTo(0));
+        assertThat(index.getRank(middle), equalTo(1));
+        assertThat(index.getRank(leaf), equalTo(2));
+        assertThat(index.parentsFirst(Arrays.asList(leaf, root, middle)), equalTo(Arrays.asList(root, middle, leaf)));
+        assertThat(index.deletePlan(Collections.singleton(middle)), equalTo(Arrays.asList(leaf, middle)));
+        assertThat(index.connectedTables(Collections.singleton(middle)), equalTo(Arrays.asList(root, middle, leaf)));
+    }
+
+    @Test
+    public void detectsForeignKeyCycles() {
+        // first -> second -> first, second -> second, second -> after
+        final DatabaseTable first = new DatabaseTable("first");
+        final DatabaseTable second = new DatabaseTable("second");
+        final DatabaseTable after = new DatabaseTable("after");
+        final DatabaseReferentialConstraint firstToSecond = link(first, second);
+        final DatabaseReferentialConstraint secondToFirst = link(second, first);
+        link(second, second);
+        link(second, after);
+
+        final SchemaGraphIndex index = SchemaGraphIndex.build(Collections.singleton(first));
+
+        assertThat(index.isCyclic(first), equalTo(true));
+        assertThat(index.isCyclic(after), equalTo(false));
+        assertThat(index.getComponent(first), equalTo(index.getComponent(second)));
+        assertThat(index.getRank(first), equalTo(index.getRank(second)));
+        assertThat(index.getRank(after), equalTo(index.getRank(first) + 1));
+        assertThat(index.cyclicConstraints(Arrays.asList(first, second, after)),
+                equalTo(Arrays.asList(firstToSecond, secondToFirst)));
+    }
+
+    private static DatabaseReferentialConstraint link(final DatabaseTable parentTable, final DatabaseTable childTable) {
+        final DatabaseReferentialConstraint constraint = new DatabaseReferentialConstraint();
+        constraint.setConstraintName(parentTable.getTableName() + "_" + childTable.getTableName() + "_FK");
+        constraint.setParentTable(parentTable);
+        constraint.setChildTable(childTable);
+        parentTable.getChildConstraints().add(constraint);
+        childTable.addParentConstraint(constraint);
+        return constraint;
+    }
+}
@@ -0,0 +1,93 @@
+package org.dis;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SchemaMetadataFileTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("dis-schema", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void readsBackTheTableGraph() {
+        final DatabaseTable parent = new DatabaseTable("owner", "parent");
+        parent.setColumns(Arrays.asList(new DatabaseColumn("id", Types.BIGINT)));
+        final DatabaseTable child = new DatabaseTable("child");
+        child.setIndexOrganized(true);
+        final DatabaseTrigger trigger = new DatabaseTrigger();
+        trigger.setOwner("OWNER");
+        trigger.setTriggerName("CHILD_TRG");
+        child.getDatabaseTriggers().add(trigger);
+        final DatabaseReferentialConstraint constraint = new DatabaseReferentialConstraint();
+        constraint.setConstraintName("CHILD_FK");
+        constraint.setParentTable(parent);
+        constraint.setChildTable(child);
+        parent.getChildConstraints().add(constraint);
+        child.addParentConstraint(constraint);
+
+        SchemaMetadataFile.write(file, "fingerprint", Arrays.asList(parent));
+        final List<DatabaseTable> tables = SchemaMetadataFile.read(file, "fingerprint");
+
+        assertThat(tables.size(), equalTo(2));
+        final DatabaseTable readParent = tables.get(0);
+        assertThat(readParent.getOwner(), equalTo("OWNER"));
+        assertThat(readParent.getColumn("ID").getSqlType(), equalTo(Types.BIGINT));
+        final DatabaseReferentialConstraint readConstraint = readParent.getChildConstraints().get(0);
+        assertThat(readConstraint.getConstraintName(), equalTo("CHILD_FK"));
+        assertThat(readConstraint.getParentTable(), sameInstance(readParent));
+        final DatabaseTable readChild = readConstraint.getChildTable();
+        assertThat(readChild, sameInstance(tables.get(1)));
+        assertThat(readChild.getOwner(), nullValue());
+        assertThat(readChild.isIndexOrganized(), equalTo(true));
+        assertThat(readChild.getParentConstraints().get(0), sameInstance(readConstraint));
+        assertThat(readChild.getDatabaseTriggers().get(0).getQualifiedName(), equalTo("OWNER.CHILD_TRG"));
+    }
+
+    @Test
+    public void keepsUnresolvedPartsOfLazyTablesUnresolved() {
+        final DatabaseTable table = new DatabaseTable("lazy");
+        table.setStructureResolver(null, false, true);
+
+        SchemaMetadataFile.write(file, "fingerprint", Arrays.asList(table));
+        final DatabaseTable readTable = SchemaMetadataFile.read(file, "fingerprint").get(0);
+
+        assertThat(readTable.isChildConstraintsResolved(), equalTo(false));
+        assertThat(readTable.isDatabaseTriggersResolved(), equalTo(true));
+    }
+
+    @Test
+    public void ignoresFileForAnotherFingerprint() {
+        SchemaMetadataFile.write(file, "before", Arrays.asList(new DatabaseTable("table")));
+        assertThat(SchemaMetadataFile.read(file, "after"), nullValue());
+    }
+
+    @Test
+    public void ignoresCorruptFile() throws IOException {
+        final FileOutputStream out = new FileOutputStream(file);
+        out.write(new byte[]{1, 2, 3});
+        out.close();
+        assertThat(SchemaMetadataFile.read(file, "fingerprint"), nullValue());
+    }
+}
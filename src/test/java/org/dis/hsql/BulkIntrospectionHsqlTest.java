@@ -0,0 +1,52 @@
+package org.dis.hsql;
+
+import org.dis.AbstractTest;
+import org.dis.DataSet;
+import org.dis.DatabaseReferentialConstraint;
+import org.dis.DatabaseTable;
+import org.dis.DatabaseTestData;
+import org.junit.Test;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.sql.Types;
+
+import static org.dis.hamcrest.matcher.ContainsDataMatcher.containsData;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@ContextConfiguration(locations = {
+        "/org/dis/hsql/bulk.spring.xml"
+})
+public class BulkIntrospectionHsqlTest extends AbstractTest {
+
+    @Test
+    public void linksSchemaGraphFromBulkQueries() {
+        final DatabaseTable parentTable = databaseTableService.loadDatabaseTableStructure("parent_table");
+        assertThat(parentTable.getNumberOfChildConstraints(), equalTo(1));
+
+        final DatabaseReferentialConstraint constraint = parentTable.getChildConstraints().get(0);
+        assertThat(constraint.getConstraintName(), equalTo("CHILD_PARENT_FK"));
+        assertThat(constraint.getParentTable(), sameInstance(parentTable));
+        assertThat(constraint.getChildTable(), sameInstance(databaseTableService.loadDatabaseTableStructure("child_table")));
+        assertThat(constraint.getChildTable().getParentConstraints().get(0), sameInstance(constraint));
+        assertThat(constraint.getChildTable().getColumn("parent_id").getSqlType(), equalTo(Types.INTEGER));
+    }
+
+    @DatabaseTestData("/org/dis/hsql/related-tables.xml")
+    @Test
+    public void seedWithBulkLoadedStructure() {
+        builder
+                .rowFor("parent_table")
+                    .col("id", equalTo(1)).col("name", equalTo("parent"))
+                .rowFor("child_table")
+                    .col("id", equalTo(10)).col("parent_id", equalTo(1)).col("name", equalTo("first child"))
+                .rowFor("child_table")
+                    .col("id", equalTo(11)).col("parent_id", equalTo(1)).col("name", equalTo("second child"))
+                .rowFor("other_table")
+                    .col("id", equalTo(20)).col("name", equalTo("other"));
+        final DataSet dataSet = builder.create();
+        assertThat(loader(), containsData(dataSet));
+    }
+
+}
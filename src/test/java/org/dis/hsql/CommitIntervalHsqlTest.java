@@ -0,0 +1,34 @@
+package org.dis.hsql;
+
+import org.dis.AbstractTest;
+import org.dis.DataSet;
+import org.dis.DatabaseTest;
+import org.dis.DatabaseTestData;
+import org.junit.Test;
+import org.springframework.test.context.ContextConfiguration;
+
+import static org.dis.hamcrest.matcher.ContainsDataMatcher.containsData;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@ContextConfiguration(locations = {
+        "/org/dis/hsql/simple.spring.xml"
+})
+@DatabaseTest(commitInterval = 2)
+public class CommitIntervalHsqlTest extends AbstractTest {
+
+    @DatabaseTestData("/org/dis/multi-row.xml")
+    @Test
+    public void seedCommittingEveryTwoRows() {
+        builder
+                .rowFor("simple_table")
+                    .col("id", equalTo(1)).col("description", equalTo("first"))
+                .rowFor("simple_table")
+                    .col("id", equalTo(2)).col("description", equalTo("second"))
+                .rowFor("simple_table")
+                    .col("id", equalTo(3)).col("description", equalTo("third"));
+        final DataSet dataSet = builder.create();
+        assertThat(loader(), containsData(dataSet));
+    }
+
+}
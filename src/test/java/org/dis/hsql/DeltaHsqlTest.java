@@ -0,0 +1,82 @@
+package org.dis.hsql;
+
+import org.dis.AbstractTest;
+import org.dis.DataSet;
+import org.dis.ResetStrategy;
+import org.dis.loader.XMLFileDataSetLoader;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+
+import javax.annotation.Resource;
+import javax.sql.DataSource;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@ContextConfiguration(locations = {
+        "/org/dis/hsql/simple.spring.xml"
+})
+public class DeltaHsqlTest extends AbstractTest {
+
+    @Resource(name = "dataSource")
+    private DataSource dataSource;
+
+    @Test
+    public void convergesRowsByPrimaryKey() {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        seed("/org/dis/multi-row.xml");
+        seed("/org/dis/hsql/delta-rows.xml");
+
+        assertThat(jdbcTemplate.queryForList("select description from simple_table order by id", String.class),
+                equalTo(Arrays.asList("first", "changed", "fourth")));
+        assertThat(jdbcTemplate.queryForList("select id from simple_table order by id", Integer.class),
+                equalTo(Arrays.asList(1, 3, 4)));
+    }
+
+    @Test
+    public void convergesRelatedTablesParentBeforeChild() {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        seed("/org/dis/hsql/related-tables.xml");
+        seed("/org/dis/hsql/delta-related-tables.xml");
+
+        assertThat(jdbcTemplate.queryForList("select id from parent_table", Integer.class),
+                equalTo(Arrays.asList(2)));
+        assertThat(jdbcTemplate.queryForList("select parent_id from child_table", Integer.class),
+                equalTo(Arrays.asList(2)));
+        assertThat(jdbcTemplate.queryForInt("select count(*) from other_table"), equalTo(1));
+    }
+
+    @Test
+    public void restoresColumnsTheDataSetDoesNotSet() {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        seed("/org/dis/hsql/delta-unset-column.xml");
+        jdbcTemplate.update("update child_table set name = 'changed' where id = 10");
+
+        seed("/org/dis/hsql/delta-unset-column.xml");
+
+        assertThat(jdbcTemplate.queryForObject("select name from child_table where id = 10", String.class),
+                nullValue());
+        assertThat(jdbcTemplate.queryForObject("select name from parent_table where id = 1", String.class),
+                equalTo("parent"));
+    }
+
+    @Test
+    public void insertsNewParentRowsBeforeResetChildTables() {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        seed("/org/dis/hsql/delta-unkeyed-child.xml");
+        seed("/org/dis/hsql/delta-unkeyed-child-new-parent.xml");
+
+        assertThat(jdbcTemplate.queryForList("select id from keyed_parent_table order by id", Integer.class),
+                equalTo(Arrays.asList(1, 2)));
+        assertThat(jdbcTemplate.queryForList("select parent_id from unkeyed_child_table", Integer.class),
+                equalTo(Arrays.asList(2)));
+    }
+
+    private void seed(final String resource) {
+        final DataSet dataSet = databaseTableService.resolveDataSet(new XMLFileDataSetLoader(resource).load());
+        databaseTableService.seedDataSet(dataSet, 0, ResetStrategy.DELTA);
+    }
+}
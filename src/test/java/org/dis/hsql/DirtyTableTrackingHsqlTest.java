@@ -0,0 +1,49 @@
+package org.dis.hsql;
+
+import org.dis.AbstractTest;
+import org.dis.DataSet;
+import org.dis.loader.XMLFileDataSetLoader;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+
+import javax.annotation.Resource;
+import javax.sql.DataSource;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@ContextConfiguration(locations = {
+        "/org/dis/hsql/dirty.spring.xml"
+})
+public class DirtyTableTrackingHsqlTest extends AbstractTest {
+
+    @Resource(name = "dataSource")
+    private DataSource dataSource;
+
+    @Test
+    public void reseedsOnlyModifiedTables() {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        final DataSet dataSet = databaseTableService.resolveDataSet(
+                new XMLFileDataSetLoader("/org/dis/single-table.xml").load()).freeze();
+
+        databaseTableService.seedDataSet(dataSet);
+        final long seeded = modifications(jdbcTemplate);
+        databaseTableService.seedDataSet(dataSet);
+        assertThat(modifications(jdbcTemplate), equalTo(seeded));
+
+        jdbcTemplate.update("update simple_table set description = 'changed'");
+        final long modified = modifications(jdbcTemplate);
+        assertThat(modified, not(equalTo(seeded)));
+        databaseTableService.seedDataSet(dataSet);
+        assertThat(modifications(jdbcTemplate), not(equalTo(modified)));
+        assertThat(jdbcTemplate.queryForObject("select description from simple_table where id = 3", String.class),
+                equalTo("description"));
+    }
+
+    private static long modifications(final JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForLong(
+                "select modifications from dis_table_modifications where table_name = 'SIMPLE_TABLE'");
+    }
+}
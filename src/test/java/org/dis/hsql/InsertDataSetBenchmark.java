@@ -0,0 +1,102 @@
+package org.dis.hsql;
+
+import org.dis.DataSet;
+import org.dis.DatabaseTable;
+import org.dis.HSQLDatabaseTableDao;
+import org.dis.InsertStrategy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * <p>
+ * Compares the rows/sec of each {@link InsertStrategy} against an embedded HSQLDB.  This is not part of
+ * the regular test run, execute it with <code>mvn test -Dtest=InsertDataSetBenchmark</code>.  The number of rows is
+ * controlled by the <code>dis.benchmark.rows</code> system property.
+ * </p>
+ */
+public class InsertDataSetBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(InsertDataSetBenchmark.class);
+
+    private static final int ROWS = Integer.getInteger("dis.benchmark.rows", 20000);
+
+    private EmbeddedDatabase dataSource;
+
+    private HSQLDatabaseTableDao databaseTableDao;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private List<DataSet.DataSetRow> rows;
+
+    @Before
+    public void setUp() {
+        dataSource = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.HSQL)
+                .addScript("classpath:/org/dis/hsql/schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        databaseTableDao = new HSQLDatabaseTableDao(dataSource);
+        databaseTableDao.setJdbcTemplate(jdbcTemplate);
+        databaseTableDao.setSimpleJdbcTemplate(new SimpleJdbcTemplate(dataSource));
+
+        final DatabaseTable table = databaseTableDao.loadDatabaseTable(new DatabaseTable("simple_table"));
+        rows = new ArrayList<DataSet.DataSetRow>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            final DataSet.DataSetRow row = new DataSet.DataSetRow();
+            row.setDatabaseTable(table);
+            row.addColumnValue("id", i);
+            row.addColumnValue("description", "description " + i);
+            rows.add(row);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    public void compareInsertStrategies() {
+        // warm up every strategy before measuring
+        for (InsertStrategy insertStrategy : InsertStrategy.values()) {
+            insertWith(insertStrategy);
+        }
+
+        for (InsertStrategy insertStrategy : InsertStrategy.values()) {
+            final long elapsed = insertWith(insertStrategy);
+            logger.info("{} insert: [{}] rows/sec", insertStrategy, rowsPerSecond(elapsed));
+        }
+    }
+
+    private long insertWith(final InsertStrategy insertStrategy) {
+        jdbcTemplate.execute("delete from simple_table");
+        databaseTableDao.setInsertStrategy(insertStrategy);
+        final long start = System.nanoTime();
+        databaseTableDao.insertRows(rows);
+        final long elapsed = System.nanoTime() - start;
+        assertRowCount();
+        return elapsed;
+    }
+
+    private void assertRowCount() {
+        assertThat(jdbcTemplate.queryForInt("select count(*) from simple_table"), equalTo(ROWS));
+    }
+
+    private static long rowsPerSecond(final long elapsedNanos) {
+        return ROWS * 1000000000L / Math.max(elapsedNanos, 1L);
+    }
+}
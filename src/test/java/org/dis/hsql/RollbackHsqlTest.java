@@ -0,0 +1,50 @@
+package org.dis.hsql;
+
+import org.dis.AbstractTest;
+import org.dis.DatabaseTest;
+import org.dis.DatabaseTestData;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+
+import javax.annotation.Resource;
+import javax.sql.DataSource;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@ContextConfiguration(locations = {
+        "/org/dis/hsql/simple.spring.xml"
+})
+@DatabaseTest(rollback = true)
+@DatabaseTestData("/org/dis/multi-row.xml")
+public class RollbackHsqlTest extends AbstractTest {
+
+    @Resource(name = "dataSource")
+    private DataSource dataSource;
+
+    @Test
+    public void rollsBackDeletedClassRows() {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        assertThat(jdbcTemplate.queryForInt("select count(*) from simple_table"), equalTo(3));
+        jdbcTemplate.update("delete from simple_table");
+        assertThat(jdbcTemplate.queryForInt("select count(*) from simple_table"), equalTo(0));
+    }
+
+    @DatabaseTestData("/org/dis/hsql/related-tables.xml")
+    @Test
+    public void seesMethodDataSetAlongsideClassDataSet() {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        assertThat(jdbcTemplate.queryForInt("select count(*) from simple_table"), equalTo(3));
+        assertThat(jdbcTemplate.queryForInt("select count(*) from child_table"), equalTo(2));
+        jdbcTemplate.update("delete from simple_table where id = 1");
+    }
+
+    @Test
+    public void seesClassDataSetDespiteOtherMethods() {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        assertThat(jdbcTemplate.queryForInt("select count(*) from simple_table"), equalTo(3));
+        assertThat(jdbcTemplate.queryForObject("select description from simple_table where id = 1", String.class),
+                equalTo("first"));
+    }
+}
@@ -0,0 +1,102 @@
+package org.dis.hsql;
+
+import org.dis.AbstractTest;
+import org.dis.DataSet;
+import org.dis.DatabaseTestData;
+import org.dis.loader.DataSetRowIterator;
+import org.dis.loader.StreamingXMLDataSetLoader;
+import org.junit.Test;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Arrays;
+
+import static org.dis.hamcrest.matcher.ContainsDataMatcher.containsData;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@ContextConfiguration(locations = {
+        "/org/dis/hsql/simple.spring.xml"
+})
+public class SimpleHsqlTest extends AbstractTest {
+
+    @DatabaseTestData("/org/dis/single-table.xml")
+    @Test
+    public void seedIntoSingleTable() {
+        builder
+                .rowFor("simple_table")
+                    .col("id", equalTo(3)).col("description", equalTo("description"));
+        final DataSet dataSet = builder.create();
+        assertThat(loader(), containsData(dataSet));
+    }
+
+    @DatabaseTestData("/org/dis/hsql/related-tables.xml")
+    @Test
+    public void seedParentsBeforeChildrenAcrossIndependentTables() {
+        builder
+                .rowFor("parent_table")
+                    .col("id", equalTo(1)).col("name", equalTo("parent"))
+                .rowFor("child_table")
+                    .col("id", equalTo(10)).col("parent_id", equalTo(1)).col("name", equalTo("first child"))
+                .rowFor("child_table")
+                    .col("id", equalTo(11)).col("parent_id", equalTo(1)).col("name", equalTo("second child"))
+                .rowFor("other_table")
+                    .col("id", equalTo(20)).col("name", equalTo("other"));
+        final DataSet dataSet = builder.create();
+        assertThat(loader(), containsData(dataSet));
+    }
+
+    @DatabaseTestData("/org/dis/hsql/typed-table.xml")
+    @Test
+    public void coerceValuesToColumnTypes() {
+        builder
+                .rowFor("typed_table")
+                    .col("id", equalTo(5L))
+                    .col("amount", equalTo(new BigDecimal("12.50")))
+                    .col("created", equalTo(Timestamp.valueOf("2011-03-04 10:15:00")))
+                    .col("active", equalTo(true));
+        final DataSet dataSet = builder.create();
+        assertThat(loader(), containsData(dataSet));
+    }
+
+    @DatabaseTestData({"/org/dis/hsql/simple_table.csv", "/org/dis/hsql/typed_table.tsv.gz"})
+    @Test
+    public void seedDelimitedFiles() {
+        builder
+                .rowFor("simple_table")
+                    .col("id", equalTo(30)).col("description", equalTo("quoted, with comma"))
+                .rowFor("simple_table")
+                    .col("id", equalTo(31)).col("description", nullValue())
+                .rowFor("typed_table")
+                    .col("id", equalTo(6L))
+                    .col("amount", equalTo(new BigDecimal("7.25")))
+                    .col("created", equalTo(Timestamp.valueOf("2011-03-05 09:00:00")))
+                    .col("active", equalTo(false));
+        final DataSet dataSet = builder.create();
+        assertThat(loader(), containsData(dataSet));
+    }
+
+    @Test
+    public void streamRowsIntoTables() {
+        databaseTableService.deleteTables(Arrays.asList(databaseTableService.loadDatabaseTableStructure("parent_table"),
+                databaseTableService.loadDatabaseTableStructure("simple_table")));
+
+        final DataSetRowIterator rows = new StreamingXMLDataSetLoader("/org/dis/hsql/streamed-tables.xml").iterator(2);
+        assertThat(databaseTableService.insertDataSet(rows, 1), equalTo(4L));
+
+        builder
+                .rowFor("parent_table")
+                    .col("id", equalTo(2)).col("name", equalTo("streamed parent"))
+                .rowFor("child_table")
+                    .col("id", equalTo(12)).col("parent_id", equalTo(2)).col("name", equalTo("first streamed child"))
+                .rowFor("child_table")
+                    .col("id", equalTo(13)).col("parent_id", equalTo(2)).col("name", equalTo("second streamed child"))
+                .rowFor("simple_table")
+                    .col("id", equalTo(3)).col("description", equalTo("description"));
+        final DataSet dataSet = builder.create();
+        assertThat(loader(), containsData(dataSet));
+    }
+
+}
@@ -0,0 +1,49 @@
+package org.dis.hsql;
+
+import org.dis.AbstractTest;
+import org.dis.DataSet;
+import org.dis.DatabaseTest;
+import org.dis.DatabaseTestData;
+import org.dis.ResetStrategy;
+import org.junit.Test;
+import org.springframework.test.context.ContextConfiguration;
+
+import static org.dis.hamcrest.matcher.ContainsDataMatcher.containsData;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@ContextConfiguration(locations = {
+        "/org/dis/hsql/simple.spring.xml"
+})
+@DatabaseTest(reset = ResetStrategy.TRUNCATE)
+public class TruncateHsqlTest extends AbstractTest {
+
+    @DatabaseTestData("/org/dis/multi-row.xml")
+    @Test
+    public void seedAfterTruncatingTables() {
+        builder
+                .rowFor("simple_table")
+                    .col("id", equalTo(1)).col("description", equalTo("first"))
+                .rowFor("simple_table")
+                    .col("id", equalTo(2)).col("description", equalTo("second"))
+                .rowFor("simple_table")
+                    .col("id", equalTo(3)).col("description", equalTo("third"));
+        final DataSet dataSet = builder.create();
+        assertThat(loader(), containsData(dataSet));
+    }
+
+    @DatabaseTestData("/org/dis/hsql/related-tables.xml")
+    @Test
+    public void seedAfterTruncatingParentAndChildTables() {
+        builder
+                .rowFor("parent_table")
+                    .col("id", equalTo(1)).col("name", equalTo("parent"))
+                .rowFor("child_table")
+                    .col("id", equalTo(10)).col("parent_id", equalTo(1)).col("name", equalTo("first child"))
+                .rowFor("child_table")
+                    .col("id", equalTo(11)).col("parent_id", equalTo(1)).col("name", equalTo("second child"));
+        final DataSet dataSet = builder.create();
+        assertThat(loader(), containsData(dataSet));
+    }
+
+}
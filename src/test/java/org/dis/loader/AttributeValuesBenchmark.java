@@ -0,0 +1,68 @@
+package org.dis.loader;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+/**
+ * <p>
+ * Compares the attributes/sec of parsing every data set attribute value with SpEL against {@link AttributeValues},
+ * on the attributes of a generated fixture of literal and repeated expression values.  This is not part of the
+ * regular test run, execute it with <code>mvn test -Dtest=AttributeValuesBenchmark</code>.  The number of rows is
+ * controlled by the <code>dis.benchmark.rows</code> system property.
+ * </p>
+ */
+public class AttributeValuesBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttributeValuesBenchmark.class);
+
+    private static final int ROWS = Integer.getInteger("dis.benchmark.rows", 100000);
+
+    private String[] attributes;
+
+    @Before
+    public void setUp() {
+        // per row: an id, a string, an amount and a flag literal, and a repeated expression
+        attributes = new String[ROWS * 5];
+        for (int i = 0; i < ROWS; i++) {
+            attributes[i * 5] = String.valueOf(i);
+            attributes[i * 5 + 1] = "'description " + i + "'";
+            attributes[i * 5 + 2] = "'" + (i % 1000) + ".50'";
+            attributes[i * 5 + 3] = i % 2 == 0 ? "true" : "false";
+            attributes[i * 5 + 4] = "new java.math.BigDecimal('" + (i % 10) + ".25')";
+        }
+    }
+
+    @Test
+    public void compareAttributeEvaluation() {
+        // warm up both before measuring
+        parseEveryAttribute();
+        evaluateEveryAttribute();
+
+        logger.info("SpEL parse per attribute: [{}] attributes/sec", attributesPerSecond(parseEveryAttribute()));
+        logger.info("AttributeValues: [{}] attributes/sec", attributesPerSecond(evaluateEveryAttribute()));
+    }
+
+    private long parseEveryAttribute() {
+        final SpelExpressionParser parser = new SpelExpressionParser();
+        final long start = System.nanoTime();
+        for (final String attribute : attributes) {
+            parser.parseRaw(attribute).getValue();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long evaluateEveryAttribute() {
+        final long start = System.nanoTime();
+        for (final String attribute : attributes) {
+            AttributeValues.evaluate(attribute);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long attributesPerSecond(final long elapsedNanos) {
+        return attributes.length * 1000000000L / Math.max(elapsedNanos, 1L);
+    }
+}
@@ -0,0 +1,29 @@
+package org.dis.loader;
+
+import org.junit.Test;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class AttributeValuesTest {
+
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+
+    @Test
+    public void evaluatesLiteralsAsSpelWould() {
+        for (final String source : new String[]{"'text'", "''", "'it''s'", "10", "-5", "0", "2147483647", "true",
+                "false", "null", "12.5", "'a' + 'b'", "2 * 3"}) {
+            assertThat(source, AttributeValues.evaluate(source), equalTo(parser.parseRaw(source).getValue()));
+        }
+    }
+
+    @Test
+    public void evaluatesCachedExpressionsEachTime() {
+        final String source = "new java.math.BigDecimal('12.50')";
+        assertThat(AttributeValues.evaluate(source), equalTo((Object) new BigDecimal("12.50")));
+        assertThat(AttributeValues.evaluate(source), equalTo((Object) new BigDecimal("12.50")));
+    }
+}
@@ -0,0 +1,86 @@
+package org.dis.loader;
+
+import org.dis.DataSet;
+import org.dis.DatabaseTable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class BinaryDataSetLoaderTest {
+
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("dataset", ".dsb");
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Test
+    public void readsBackTypedNullAndAbsentValues() throws IOException {
+        final DataSet dataSet = new DataSet();
+        dataSet.addRow(row("typed_table", "id", 5L, "amount", new BigDecimal("-12.50"),
+                "created", Timestamp.valueOf("2011-03-04 10:15:00.123456789"), "active", true));
+        dataSet.addRow(row("typed_table", "id", 6L, "amount", null, "mixed", "text"));
+        dataSet.addRow(row("typed_table", "id", 7L, "mixed", 3));
+        dataSet.addRow(row("simple_table", "id", 1, "description", "d\u00e9j\u00e0 vu"));
+
+        new BinaryDataSetWriter().write(dataSet, file);
+
+        assertSameRows(new BinaryDataSetLoader(file).load().getRows(), dataSet.getRows());
+    }
+
+    @Test
+    public void readsBackTableOwners() throws IOException {
+        final DataSet dataSet = new DataSet();
+        dataSet.addRow(row("other_owner.owned_table", "id", 1));
+        dataSet.addRow(row("simple_table", "id", 2));
+
+        new BinaryDataSetWriter().write(dataSet, file);
+
+        final List<DataSet.DataSetRow> rows = new BinaryDataSetLoader(file).load().getRows();
+        assertSameRows(rows, dataSet.getRows());
+        assertThat(rows.get(0).getDatabaseTable().getOwner(), equalTo("OTHER_OWNER"));
+    }
+
+    @Test
+    public void convertsXmlDataSets() throws IOException {
+        new BinaryDataSetWriter().convert("/org/dis/multi-row.xml", file);
+
+        assertSameRows(new BinaryDataSetLoader(file).load().getRows(),
+                new XMLFileDataSetLoader("/org/dis/multi-row.xml").load().getRows());
+    }
+
+    private static void assertSameRows(final List<DataSet.DataSetRow> actual, final List<DataSet.DataSetRow> expected) {
+        assertThat(actual.size(), equalTo(expected.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).getDatabaseTable().getTableName(),
+                    equalTo(expected.get(i).getDatabaseTable().getTableName()));
+            assertThat(actual.get(i).getDatabaseTable().getOwner(),
+                    equalTo(expected.get(i).getDatabaseTable().getOwner()));
+            assertThat(actual.get(i).getValues(), equalTo(expected.get(i).getValues()));
+        }
+    }
+
+    private static DataSet.DataSetRow row(final String tableName, final Object... columnsAndValues) {
+        final DataSet.DataSetRow row = new DataSet.DataSetRow();
+        row.setDatabaseTable(DatabaseTable.parse(tableName));
+        for (int i = 0; i < columnsAndValues.length; i += 2) {
+            row.addColumnValue((String) columnsAndValues[i], columnsAndValues[i + 1]);
+        }
+        return row;
+    }
+}
@@ -0,0 +1,45 @@
+package org.dis.loader;
+
+import org.dis.DataSet;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class XMLFileDataSetLoaderTest {
+
+    @Test
+    public void mergesDiamondIncludesOnceInDocumentOrder() {
+        assertThat(ids(new XMLFileDataSetLoader("/org/dis/include/diamond.xml").load()), equalTo(ids(1, 2, 4, 3)));
+        assertThat(ids(new StreamingXMLDataSetLoader("/org/dis/include/diamond.xml").load()), equalTo(ids(1, 2, 4, 3)));
+    }
+
+    @Test(expected = DataSetLoaderException.class)
+    public void rejectsCyclicIncludes() {
+        new XMLFileDataSetLoader("/org/dis/include/cycle-first.xml").load();
+    }
+
+    @Test(expected = DataSetLoaderException.class)
+    public void rejectsCyclicIncludesWhenStreaming() {
+        new StreamingXMLDataSetLoader("/org/dis/include/cycle-first.xml").load();
+    }
+
+    private static List<Object> ids(final DataSet dataSet) {
+        final List<Object> ids = new ArrayList<Object>();
+        for (final DataSet.DataSetRow row : dataSet.getRows()) {
+            ids.add(row.getValueFor("id"));
+        }
+        return ids;
+    }
+
+    private static List<Object> ids(final Object... ids) {
+        final List<Object> list = new ArrayList<Object>();
+        for (final Object id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+}
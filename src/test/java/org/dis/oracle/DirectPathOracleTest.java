@@ -0,0 +1,32 @@
+package org.dis.oracle;
+
+import org.dis.AbstractTest;
+import org.dis.DataSet;
+import org.dis.DatabaseTestData;
+import org.junit.Test;
+import org.springframework.test.context.ContextConfiguration;
+
+import static org.dis.hamcrest.matcher.ContainsDataMatcher.containsData;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@ContextConfiguration(locations = {
+        "/org/dis/oracle/direct-path.spring.xml"
+})
+public class DirectPathOracleTest extends AbstractTest {
+
+    @DatabaseTestData("/org/dis/multi-row.xml")
+    @Test
+    public void seedIntoSingleTableWithDirectPathInsert() {
+        builder
+                .rowFor("simple_table")
+                    .col("id", equalTo(bd(1))).col("description", equalTo("first"))
+                .rowFor("simple_table")
+                    .col("id", equalTo(bd(2))).col("description", equalTo("second"))
+                .rowFor("simple_table")
+                    .col("id", equalTo(bd(3))).col("description", equalTo("third"));
+        final DataSet dataSet = builder.create();
+        assertThat(loader(), containsData(dataSet));
+    }
+
+}
@@ -0,0 +1,14 @@
+drop table unkeyed_child_table if exists;
+drop table keyed_parent_table if exists;
+drop table child_table if exists;
+drop table parent_table if exists;
+drop table simple_table if exists;
+drop table other_table if exists;
+drop table typed_table if exists;
+create table simple_table (id integer primary key, description varchar(255));
+create table parent_table (id integer primary key, name varchar(255));
+create table child_table (id integer primary key, parent_id integer, name varchar(255), constraint child_parent_fk foreign key (parent_id) references parent_table (id));
+create table other_table (id integer primary key, name varchar(255));
+create table keyed_parent_table (id integer primary key);
+create table unkeyed_child_table (parent_id integer, constraint unkeyed_child_parent_fk foreign key (parent_id) references keyed_parent_table (id));
+create table typed_table (id bigint primary key, amount decimal(10,2), created timestamp, active boolean);